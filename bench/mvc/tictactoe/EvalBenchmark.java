@@ -0,0 +1,98 @@
+package mvc.tictactoe;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for the pattern evaluation: the score of the position after
+ * one move, found by updating the pattern indices incrementally and by
+ * reading every pattern from the board again. Throughput is in evaluations
+ * per second.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+
+    // Positions in the corpus; a power of two so cycling is a mask
+    private static final int CORPUS_SIZE = 64;
+
+    @Param({"20", "32", "44"})
+    public int fill;
+
+    @Param({"1"})
+    public long seed;
+
+    private Board[] positions;
+    private int[] moves;
+    private PatternEvaluator[] evaluators;
+    private PatternEvaluator.Weights weights;
+    private int[] indices;
+    private int next;
+
+
+    @Setup
+    public void setup() {
+        this.positions = RandomPositions.generate(this.seed, CORPUS_SIZE, Board.SQUARES - this.fill);
+        this.moves = new int[CORPUS_SIZE];
+        this.evaluators = new PatternEvaluator[CORPUS_SIZE];
+        this.weights = PatternEvaluator.Weights.defaults();
+        this.indices = new int[PatternEvaluator.INSTANCES];
+        Random random = new Random(this.seed);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Board board = this.positions[i];
+            this.moves[i] = RandomPositions.randomMove(MoveGenerator.legalMoves(board), random);
+            this.evaluators[i] = new PatternEvaluator(this.weights);
+            this.evaluators[i].setPosition(board.getXDiscs(), board.getODiscs());
+        }
+    }
+
+
+    private int nextIndex() {
+        this.next = (this.next + 1) & (CORPUS_SIZE - 1);
+        return this.next;
+    }
+
+
+    @Benchmark
+    public int incremental() {
+        int i = this.nextIndex();
+        Board board = this.positions[i];
+        PatternEvaluator evaluator = this.evaluators[i];
+        int square = this.moves[i];
+        boolean xMoved = board.isXToMove();
+        long flips = Flips.flips(board.player(), board.opponent(), square);
+        long player = board.opponent() ^ flips;
+        long opponent = board.player() ^ flips ^ Board.bit(square);
+        evaluator.play(square, flips, xMoved);
+        int score = evaluator.evaluate(!xMoved, player, opponent, MoveGenerator.legalMoves(player, opponent));
+        evaluator.undo(square, flips, xMoved);
+        return score;
+    }
+
+
+    @Benchmark
+    public int recompute() {
+        int i = this.nextIndex();
+        Board board = this.positions[i];
+        int square = this.moves[i];
+        boolean xMoved = board.isXToMove();
+        long flips = Flips.flips(board.player(), board.opponent(), square);
+        long player = board.opponent() ^ flips;
+        long opponent = board.player() ^ flips ^ Board.bit(square);
+        if (xMoved) {
+            PatternEvaluator.computeIndices(opponent, player, this.indices);
+        } else {
+            PatternEvaluator.computeIndices(player, opponent, this.indices);
+        }
+        return PatternEvaluator.evaluate(this.weights, this.indices, !xMoved, player, opponent,
+                MoveGenerator.legalMoves(player, opponent));
+    }
+}
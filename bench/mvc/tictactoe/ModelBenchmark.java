@@ -0,0 +1,125 @@
+package mvc.tictactoe;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the Model hot paths: legality checks, flip computation,
+ * square lookups and a full playerMove message round trip through the
+ * MessageBus.
+ *
+ * Each benchmark cycles through a corpus of positions reached by seeded
+ * random play. The fill parameter sets how many discs are on the board and
+ * the seed parameter picks a different corpus, so numbers can be compared
+ * from run to run. Run with "ant bench"; results are written as JSON.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    // Positions in each corpus; a power of two so cycling is a mask
+    private static final int CORPUS_SIZE = 64;
+
+    @Param({"8", "20", "32", "44", "56"})
+    public int fill;
+
+    @Param({"1", "2", "3"})
+    public long seed;
+
+    private Board[] positions;
+    private int[] moves;
+    private int[][] rowCols;
+    private Model[] models;
+    private MessageBus[] buses;
+    private PlayerMove[] playerMoves;
+    private int next;
+
+
+    @Setup
+    public void setup() {
+        this.positions = RandomPositions.generate(this.seed, CORPUS_SIZE, Board.SQUARES - this.fill);
+        this.moves = new int[CORPUS_SIZE];
+        this.rowCols = new int[CORPUS_SIZE][];
+        this.models = new Model[CORPUS_SIZE];
+        this.buses = new MessageBus[CORPUS_SIZE];
+        this.playerMoves = new PlayerMove[CORPUS_SIZE];
+        Random random = new Random(this.seed);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            int move = RandomPositions.randomMove(MoveGenerator.legalMoves(this.positions[i]), random);
+            this.moves[i] = move;
+            this.rowCols[i] = new int[] {move / Board.SIZE, move % Board.SIZE};
+            this.playerMoves[i] = PlayerMove.of(move);
+            this.buses[i] = new MessageBus();
+            this.models[i] = new Model(this.buses[i]);
+            this.models[i].init();
+            this.models[i].setPosition(this.positions[i]);
+        }
+    }
+
+
+    private int nextIndex() {
+        this.next = (this.next + 1) & (CORPUS_SIZE - 1);
+        return this.next;
+    }
+
+
+    @Benchmark
+    public long legalMoves() {
+        Board board = this.positions[this.nextIndex()];
+        return MoveGenerator.legalMoves(board.player(), board.opponent());
+    }
+
+
+    @Benchmark
+    public boolean isLegalMove() {
+        int i = this.nextIndex();
+        return this.models[i].isLegalMove(this.rowCols[i]);
+    }
+
+
+    @Benchmark
+    public int getSquare() {
+        int i = this.nextIndex();
+        return this.models[i].getSquare(this.rowCols[i]);
+    }
+
+
+    @Benchmark
+    public long flips() {
+        int i = this.nextIndex();
+        Board board = this.positions[i];
+        return Flips.flips(board.player(), board.opponent(), this.moves[i]);
+    }
+
+
+    @Benchmark
+    public long makeUnmakeMove() {
+        int i = this.nextIndex();
+        Board board = this.positions[i];
+        long flips = board.makeMove(this.moves[i]);
+        board.unmakeMove();
+        return flips;
+    }
+
+
+    /**
+     * playerMove followed by undoMove, so the model ends where it started.
+     * Both messages publish boardChange.
+     */
+    @Benchmark
+    public void playerMoveRoundTrip(Blackhole blackhole) {
+        int i = this.nextIndex();
+        this.buses[i].notify(MessageType.PLAYER_MOVE, this.playerMoves[i]);
+        this.buses[i].notify(MessageType.UNDO_MOVE);
+        blackhole.consume(this.models[i]);
+    }
+}
@@ -0,0 +1,86 @@
+package mvc.tictactoe;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for putting positions in canonical form: finding the
+ * canonical transform, hashing the canonical form as the book and the
+ * position index do, and applying a transform that changes from call to
+ * call. Throughput is in positions per second.
+ *
+ * The corpus is large enough that which transform wins cannot be learned by
+ * the branch predictor, as with positions from real games.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymmetryBenchmark {
+
+    // Positions in the corpus; a power of two so cycling is a mask
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"8", "32", "56"})
+    public int fill;
+
+    @Param({"1"})
+    public long seed;
+
+    private long[] players;
+    private long[] opponents;
+    private final long[] canonical = new long[2];
+    private int next;
+
+
+    @Setup
+    public void setup() {
+        Board[] positions = RandomPositions.generate(this.seed, CORPUS_SIZE, Board.SQUARES - this.fill);
+        this.players = new long[CORPUS_SIZE];
+        this.opponents = new long[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            this.players[i] = positions[i].player();
+            this.opponents[i] = positions[i].opponent();
+        }
+    }
+
+
+    private int nextIndex() {
+        this.next = (this.next + 1) & (CORPUS_SIZE - 1);
+        return this.next;
+    }
+
+
+    @Benchmark
+    public int canonicalTransform() {
+        int i = this.nextIndex();
+        return Symmetry.canonicalTransform(this.players[i], this.opponents[i]);
+    }
+
+
+    @Benchmark
+    public long canonicalHash() {
+        int i = this.nextIndex();
+        return Symmetry.canonicalHash(this.players[i], this.opponents[i]);
+    }
+
+
+    @Benchmark
+    public long canonicalize() {
+        int i = this.nextIndex();
+        Symmetry.canonicalize(this.players[i], this.opponents[i], this.canonical);
+        return this.canonical[0] ^ this.canonical[1];
+    }
+
+
+    @Benchmark
+    public long transform() {
+        int i = this.nextIndex();
+        return Symmetry.transform(this.players[i], i & (Symmetry.COUNT - 1));
+    }
+}
@@ -0,0 +1,338 @@
+package mvc.tictactoe;
+
+/**
+ * The Board is the core game-state representation used by the Model. Each
+ * side's discs are held in a single 64-bit mask, with bit (row * 8 + col)
+ * standing for the square at that row and column, plus a flag for whose move
+ * it is. X always moves first.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class Board {
+
+    /** Number of rows and columns on the board */
+    public static final int SIZE = 8;
+
+    /** Number of squares on the board */
+    public static final int SQUARES = SIZE * SIZE;
+
+    /** Move number used for a pass */
+    public static final int PASS = SQUARES;
+
+    // Deepest undo history: every square filled plus a pass before each move
+    private static final int MAX_PLY = 2 * SQUARES;
+
+    // Disc masks for each side and whose move it is
+    private long xDiscs;
+    private long oDiscs;
+    private boolean xToMove;
+
+    // Zobrist hash of the position, kept up to date move by move
+    private long hash;
+
+    // Undo stack of the moves made and the discs each one flipped
+    private final long[] undoFlips = new long[MAX_PLY];
+    private final byte[] undoSquares = new byte[MAX_PLY];
+    private int ply;
+
+
+    /**
+     * Board constructor: creates a board set up for a new game
+     */
+    public Board() {
+        this.reset();
+    }
+
+
+    /**
+     * Board constructor: creates a board from the given disc masks
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     * @param xToMove true if it is X's move
+     */
+    public Board(long xDiscs, long oDiscs, boolean xToMove) {
+        this.xDiscs = xDiscs;
+        this.oDiscs = oDiscs;
+        this.xToMove = xToMove;
+        this.hash = Zobrist.hash(xDiscs, oDiscs, xToMove);
+    }
+
+
+    /**
+     * Board constructor: creates a copy of another board
+     *
+     * @param other Board to copy
+     */
+    public Board(Board other) {
+        this.copyFrom(other);
+    }
+
+
+    /**
+     * Reset the board to the starting position of a new game
+     */
+    public final void reset() {
+        this.xDiscs = bit(square(3, 4)) | bit(square(4, 3));
+        this.oDiscs = bit(square(3, 3)) | bit(square(4, 4));
+        this.xToMove = true;
+        this.hash = Zobrist.hash(this.xDiscs, this.oDiscs, true);
+        this.ply = 0;
+    }
+
+
+    /**
+     * Overwrite this board with the contents of another board. The undo
+     * history is not copied.
+     *
+     * @param other Board to copy
+     */
+    public final void copyFrom(Board other) {
+        this.xDiscs = other.xDiscs;
+        this.oDiscs = other.oDiscs;
+        this.xToMove = other.xToMove;
+        this.hash = other.hash;
+        this.ply = 0;
+    }
+
+
+    /**
+     * Square index of a row and column
+     *
+     * @param row Row 0-7
+     * @param col Column 0-7
+     * @return Square index 0-63
+     */
+    public static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+
+    /**
+     * Single bit mask for a square
+     *
+     * @param square Square index 0-63
+     * @return Mask with only that square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+
+    public long getXDiscs() {
+        return this.xDiscs;
+    }
+
+
+    public long getODiscs() {
+        return this.oDiscs;
+    }
+
+
+    public boolean isXToMove() {
+        return this.xToMove;
+    }
+
+
+    /**
+     * @return Zobrist hash of the position, including the side to move
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+
+    /**
+     * @return Discs of the side to move
+     */
+    public long player() {
+        return this.xToMove ? this.xDiscs : this.oDiscs;
+    }
+
+
+    /**
+     * @return Discs of the side not to move
+     */
+    public long opponent() {
+        return this.xToMove ? this.oDiscs : this.xDiscs;
+    }
+
+
+    /**
+     * @return Mask of all empty squares
+     */
+    public long empty() {
+        return ~(this.xDiscs | this.oDiscs);
+    }
+
+
+    public boolean isEmpty(int square) {
+        return ((this.xDiscs | this.oDiscs) & bit(square)) == 0;
+    }
+
+
+    /**
+     * Contents of a square relative to the side to move
+     *
+     * @param square Square index 0-63
+     * @return 1 if the side to move owns it, -1 if the opponent owns it, 0 if
+     * it is empty
+     */
+    public int getSquare(int square) {
+        long mask = bit(square);
+        if ((this.player() & mask) != 0) {
+            return 1;
+        } else if ((this.opponent() & mask) != 0) {
+            return -1;
+        }
+        return 0;
+    }
+
+
+    /**
+     * Put a disc for the side to move on a square and turn over the given
+     * opponent discs, updating the hash to match. The side to move is not
+     * changed. Calling it twice with the same arguments undoes it.
+     *
+     * @param square Square index 0-63
+     * @param flips Mask of the opponent discs to turn over
+     */
+    private void applyMove(int square, long flips) {
+        long placed = flips | bit(square);
+        if (this.xToMove) {
+            this.xDiscs ^= placed;
+            this.oDiscs ^= flips;
+        } else {
+            this.oDiscs ^= placed;
+            this.xDiscs ^= flips;
+        }
+        this.hash ^= Zobrist.placeKey(square, this.xToMove) ^ Zobrist.flipKey(flips);
+    }
+
+
+    /**
+     * Play a move for the side to move, remember it on the undo stack and
+     * hand the move to the other side. Nothing is allocated.
+     *
+     * @param square Square index 0-63, or PASS
+     * @return Mask of the discs that were turned over
+     */
+    public long makeMove(int square) {
+        if (this.ply == MAX_PLY) {
+            throw new IllegalStateException("Undo stack is full");
+        }
+        long flips = 0;
+        if (square != PASS) {
+            flips = Flips.flips(this.player(), this.opponent(), square);
+            this.applyMove(square, flips);
+        }
+        this.undoFlips[this.ply] = flips;
+        this.undoSquares[this.ply] = (byte) square;
+        this.ply++;
+        this.switchSide();
+        return flips;
+    }
+
+
+    /**
+     * Take back the last move made with makeMove
+     *
+     * @return Square of the move taken back, or PASS
+     */
+    public int unmakeMove() {
+        if (this.ply == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        this.ply--;
+        this.switchSide();
+        int square = this.undoSquares[this.ply];
+        if (square != PASS) {
+            // XOR is its own inverse, so applying the move again removes it
+            this.applyMove(square, this.undoFlips[this.ply]);
+        }
+        return square;
+    }
+
+
+    /**
+     * @return Number of moves, including passes, that can be taken back
+     */
+    public int getPly() {
+        return this.ply;
+    }
+
+
+    /**
+     * @param ply Index into the undo history, 0 for the first move
+     * @return Square of that move, or PASS
+     */
+    public int getMove(int ply) {
+        return this.undoSquares[ply];
+    }
+
+
+    /**
+     * Hand the move to the other side
+     */
+    public void switchSide() {
+        this.xToMove = !this.xToMove;
+        this.hash ^= Zobrist.O_TO_MOVE;
+    }
+
+
+    /**
+     * Fill a String[8][8] with "X", "O" or "" for each square. The array is
+     * reused so the board can be redrawn without allocating.
+     *
+     * @param view Array to fill
+     * @return The same array
+     */
+    public String[][] copyInto(String[][] view) {
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                long mask = bit(square(row, col));
+                if ((this.xDiscs & mask) != 0) {
+                    view[row][col] = "X";
+                } else if ((this.oDiscs & mask) != 0) {
+                    view[row][col] = "O";
+                } else {
+                    view[row][col] = "";
+                }
+            }
+        }
+        return view;
+    }
+
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Board)) {
+            return false;
+        }
+        Board board = (Board) other;
+        return this.xDiscs == board.xDiscs && this.oDiscs == board.oDiscs
+                && this.xToMove == board.xToMove;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return (int) (this.hash ^ (this.hash >>> 32));
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(SQUARES + SIZE + 2);
+        for (int sq = 0; sq < SQUARES; sq++) {
+            long mask = bit(sq);
+            sb.append((this.xDiscs & mask) != 0 ? 'X' : (this.oDiscs & mask) != 0 ? 'O' : '-');
+            if (sq % SIZE == SIZE - 1) {
+                sb.append('\n');
+            }
+        }
+        sb.append(this.xToMove ? "X to move" : "O to move");
+        return sb.toString();
+    }
+}
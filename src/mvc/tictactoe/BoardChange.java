@@ -0,0 +1,102 @@
+package mvc.tictactoe;
+
+/**
+ * Payload of boardChange: the position after a move, a take-back or a new
+ * game. Besides the whole position it carries a mask of the squares that
+ * changed since the previous boardChange and a sequence number that goes up
+ * by one each time, so a receiver that saw the previous one only needs to
+ * redraw the changed squares. A receiver that missed one, or whose first
+ * message this is, redraws everything.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class BoardChange {
+
+    private final long xDiscs;
+    private final long oDiscs;
+    private final boolean xToMove;
+    private final long changed;
+    private final long sequence;
+
+
+    /**
+     * BoardChange constructor
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     * @param xToMove true if it is X's move
+     * @param changed Mask of the squares that changed since the previous
+     * boardChange; every bit set if there was none
+     * @param sequence One more than the previous boardChange's
+     */
+    public BoardChange(long xDiscs, long oDiscs, boolean xToMove, long changed, long sequence) {
+        this.xDiscs = xDiscs;
+        this.oDiscs = oDiscs;
+        this.xToMove = xToMove;
+        this.changed = changed;
+        this.sequence = sequence;
+    }
+
+
+    public long getXDiscs() {
+        return this.xDiscs;
+    }
+
+
+    public long getODiscs() {
+        return this.oDiscs;
+    }
+
+
+    public boolean isXToMove() {
+        return this.xToMove;
+    }
+
+
+    public long getChanged() {
+        return this.changed;
+    }
+
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+
+    /**
+     * Squares a receiver has to redraw
+     *
+     * @param lastSequence Sequence number of the last boardChange it drew
+     * @return The changed squares if that was the one before this, otherwise
+     * every square
+     */
+    public long changedSince(long lastSequence) {
+        return this.sequence == lastSequence + 1 ? this.changed : -1L;
+    }
+
+
+    /**
+     * @param square Square index 0-63
+     * @return "X", "O" or "" for an empty square
+     */
+    public String getSquare(int square) {
+        long bit = Board.bit(square);
+        return (this.xDiscs & bit) != 0 ? "X" : (this.oDiscs & bit) != 0 ? "O" : "";
+    }
+
+
+    /**
+     * @return The position as a Board
+     */
+    public Board toBoard() {
+        return new Board(this.xDiscs, this.oDiscs, this.xToMove);
+    }
+
+
+    @Override
+    public String toString() {
+        return "#" + this.sequence + " changed " + Long.bitCount(this.changed) + "\n"
+                + new Board(this.xDiscs, this.oDiscs, this.xToMove);
+    }
+}
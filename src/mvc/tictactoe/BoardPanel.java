@@ -0,0 +1,219 @@
+package mvc.tictactoe;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+
+/**
+ * The board drawn as one component: a grid of cells with a black disc for X
+ * and a white disc for O. The two discs are drawn once per cell size into
+ * images compatible with the screen and copied into each cell after that.
+ * When discs change only their cells are repainted, and a click is turned
+ * straight into the square under the mouse.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class BoardPanel extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Cell size the panel asks for, in pixels */
+    public static final int PREFERRED_CELL = 46;
+
+    private static final Color BOARD_COLOR = new Color(0x1E7A3C);
+    private static final Color GRID_COLOR = new Color(0x0B3D1C);
+
+    private long xDiscs;
+    private long oDiscs;
+
+    // Called with the square clicked, or null to ignore clicks
+    private MessageListener<PlayerMove> clickListener;
+
+    // Disc images for spriteCell sized cells, made again when the size changes
+    private BufferedImage xSprite;
+    private BufferedImage oSprite;
+    private int spriteCell;
+
+
+    /**
+     * BoardPanel constructor: an empty board
+     */
+    public BoardPanel() {
+        setOpaque(true);
+        setPreferredSize(new Dimension(Board.SIZE * PREFERRED_CELL + 1, Board.SIZE * PREFERRED_CELL + 1));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int square = squareAt(e.getX(), e.getY());
+                if (square >= 0 && clickListener != null) {
+                    clickListener.onMessage(PlayerMove.of(square));
+                }
+            }
+        });
+    }
+
+
+    /**
+     * @param listener Called on the event dispatch thread with the square
+     * that was clicked; null to ignore clicks
+     */
+    public void setClickListener(MessageListener<PlayerMove> listener) {
+        this.clickListener = listener;
+    }
+
+
+    /**
+     * Show a new position and repaint the squares that changed. Must be
+     * called on the event dispatch thread.
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     * @param changed Mask of the squares to repaint
+     */
+    public void setDiscs(long xDiscs, long oDiscs, long changed) {
+        this.xDiscs = xDiscs;
+        this.oDiscs = oDiscs;
+        if (!isShowing()) {
+            return;
+        }
+        if (changed == -1L) {
+            repaint();
+            return;
+        }
+        // Paint each changed cell on its own now; repaint() would merge them
+        // into one rectangle that covers everything in between
+        Rectangle cell = new Rectangle();
+        while (changed != 0) {
+            this.cellBounds(Long.numberOfTrailingZeros(changed), cell);
+            paintImmediately(cell);
+            changed &= changed - 1;
+        }
+    }
+
+
+    /**
+     * @param x Horizontal position in the panel
+     * @param y Vertical position in the panel
+     * @return Square index 0-63 at that point, or -1 if it is off the board
+     */
+    public int squareAt(int x, int y) {
+        int size = this.cellSize();
+        if (size == 0) {
+            return -1;
+        }
+        int col = floorDiv(x - this.left(size), size);
+        int row = floorDiv(y - this.top(size), size);
+        if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE) {
+            return -1;
+        }
+        return Board.square(row, col);
+    }
+
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int size = this.cellSize();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground() != null ? getBackground() : Color.LIGHT_GRAY);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (size == 0) {
+            return;
+        }
+        if (size != this.spriteCell) {
+            this.makeSprites(size);
+        }
+        // Only the cells the clip touches are drawn
+        int left = this.left(size);
+        int top = this.top(size);
+        int firstCol = Math.max(0, floorDiv(clip.x - left, size));
+        int lastCol = Math.min(Board.SIZE - 1, floorDiv(clip.x + clip.width - 1 - left, size));
+        int firstRow = Math.max(0, floorDiv(clip.y - top, size));
+        int lastRow = Math.min(Board.SIZE - 1, floorDiv(clip.y + clip.height - 1 - top, size));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = left + col * size;
+                int y = top + row * size;
+                g.setColor(BOARD_COLOR);
+                g.fillRect(x, y, size, size);
+                g.setColor(GRID_COLOR);
+                g.drawRect(x, y, size, size);
+                long bit = Board.bit(Board.square(row, col));
+                if ((this.xDiscs & bit) != 0) {
+                    g.drawImage(this.xSprite, x, y, null);
+                } else if ((this.oDiscs & bit) != 0) {
+                    g.drawImage(this.oSprite, x, y, null);
+                }
+            }
+        }
+    }
+
+
+    // Draw the two discs for cells of the given size
+    private void makeSprites(int size) {
+        this.xSprite = this.makeSprite(size, Color.BLACK, Color.DARK_GRAY);
+        this.oSprite = this.makeSprite(size, Color.WHITE, Color.GRAY);
+        this.spriteCell = size;
+    }
+
+
+    private BufferedImage makeSprite(int size, Color fill, Color edge) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        BufferedImage sprite = config != null
+                ? config.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int margin = Math.max(2, size / 8);
+        g.setColor(fill);
+        g.fillOval(margin, margin, size - 2 * margin, size - 2 * margin);
+        g.setColor(edge);
+        g.drawOval(margin, margin, size - 2 * margin, size - 2 * margin);
+        g.dispose();
+        return sprite;
+    }
+
+
+    // Bounds of a square's cell, grid lines included
+    private void cellBounds(int square, Rectangle cell) {
+        int size = this.cellSize();
+        cell.setBounds(this.left(size) + (square % Board.SIZE) * size,
+                this.top(size) + (square / Board.SIZE) * size, size + 1, size + 1);
+    }
+
+
+    // Largest cell size that fits, leaving a pixel for the last grid line
+    private int cellSize() {
+        return Math.max(0, (Math.min(getWidth(), getHeight()) - 1) / Board.SIZE);
+    }
+
+
+    // Division rounding down, so points left of or above the board give a
+    // negative row or column
+    private static int floorDiv(int a, int b) {
+        return a >= 0 ? a / b : -((-a + b - 1) / b);
+    }
+
+
+    // Board is centred in the panel
+    private int left(int size) {
+        return (getWidth() - Board.SIZE * size) / 2;
+    }
+
+
+    private int top(int size) {
+        return (getHeight() - Board.SIZE * size) / 2;
+    }
+}
@@ -0,0 +1,643 @@
+package mvc.tictactoe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Offline opening book builder. Starting from the new game position it
+ * searches positions deeply on several threads and stores the best move of
+ * each in an OpeningBook file.
+ *
+ * Positions are expanded best-first. The line the engine plays against
+ * itself costs only a small amount per ply; every move that scores worse
+ * than the best move also costs the score it gives away. Positions whose
+ * cost is within the budget have all of their replies queued, so the book
+ * covers the self-play line deeply and the reasonable sidelines less deeply.
+ * Positions that are rotations or reflections of one already searched are
+ * skipped.
+ *
+ * Only the positions searched since the last checkpoint are kept in memory.
+ * A checkpoint writes them, sorted, as a new segment file in the book format
+ * beside the book, so its cost depends on the positions added rather than
+ * on the size of the book. Segments are mapped, not read, and are merged
+ * whenever the newest is at least half the size of the one before it, so
+ * there are only a few of them. The queue of positions still to search is
+ * written with each checkpoint too.
+ *
+ * A manifest file, "<book>.manifest", names the segments and the queue file
+ * that belong together. Every checkpoint writes new files and then replaces
+ * the manifest in one atomic move, so a crash at any point leaves the last
+ * manifest and all of its files whole. Starting again with the same book
+ * file carries on from there. The book file itself is written once, by
+ * merging the segments, when the builder finishes or is stopped.
+ *
+ * Usage: BookBuilder --book=FILE [--threads=N] [--millis=N] [--depth=N]
+ * [--budget=N] [--ply-cost=N] [--max-ply=N] [--positions=N]
+ * [--checkpoint=SECONDS]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class BookBuilder {
+
+    /** "OBF1" */
+    public static final int FRONTIER_MAGIC = 0x4F424631;
+
+    /** "OBM1" */
+    public static final int MANIFEST_MAGIC = 0x4F424D31;
+
+    // Bytes per saved frontier position
+    private static final int LEAF_BYTES = 26;
+
+    /**
+     * A position waiting to be searched, with what is known about how it was
+     * reached
+     */
+    private static class Leaf implements Comparable<Leaf> {
+
+        private final long xDiscs;
+        private final long oDiscs;
+        private final boolean xToMove;
+        private final int ply;
+        private final int parentScore;
+        private final int parentCost;
+
+
+        private Leaf(long xDiscs, long oDiscs, boolean xToMove, int ply, int parentScore, int parentCost) {
+            this.xDiscs = xDiscs;
+            this.oDiscs = oDiscs;
+            this.xToMove = xToMove;
+            this.ply = ply;
+            this.parentScore = parentScore;
+            this.parentCost = parentCost;
+        }
+
+
+        @Override
+        public int compareTo(Leaf other) {
+            if (this.parentCost != other.parentCost) {
+                return this.parentCost < other.parentCost ? -1 : 1;
+            }
+            return this.ply < other.ply ? -1 : this.ply == other.ply ? 0 : 1;
+        }
+    }
+
+    /**
+     * A sorted file of positions written at a checkpoint, mapped for lookups
+     */
+    private static class Segment {
+
+        private final Path file;
+        private final OpeningBook book;
+
+
+        private Segment(Path file) throws IOException {
+            this.file = file;
+            this.book = OpeningBook.open(file);
+        }
+    }
+
+    private final Path bookFile;
+    private final Path manifestFile;
+    private final int threads;
+    private final long millis;
+    private final int depth;
+    private final int budget;
+    private final int plyCost;
+    private final int maxPly;
+    private final int maxPositions;
+
+    // Positions searched since the last checkpoint, and games counted since
+    // then for positions stored before it
+    private final ConcurrentHashMap<Long, OpeningBook.Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Boolean> claimed = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Leaf> frontier = new PriorityBlockingQueue<>();
+
+    // Segments stored at checkpoints, oldest first. Replaced, never changed,
+    // and only while holding the write lock.
+    private volatile List<Segment> segments = new ArrayList<>();
+    private final AtomicInteger positions = new AtomicInteger();
+
+    // Used only by the synchronized checkpoint methods: number for the next
+    // file written, and the queue file and position count of the last
+    // checkpoint
+    private long generation;
+    private Path frontierFile;
+    private int storedPositions;
+
+    // Workers hold the read lock while they expand a position; a checkpoint
+    // takes the write lock so it never sees a position half expanded
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger busy = new AtomicInteger();
+    private volatile boolean stopped;
+
+    private final List<Search> searches = Collections.synchronizedList(new ArrayList<Search>());
+    private final ThreadLocal<Search> search = new ThreadLocal<Search>() {
+        @Override
+        protected Search initialValue() {
+            Search search = new Search();
+            searches.add(search);
+            return search;
+        }
+    };
+
+
+    /**
+     * BookBuilder constructor
+     *
+     * @param bookFile Book file to write; the checkpoints beside it are
+     * carried on from if there are any
+     * @param threads Positions searched at the same time
+     * @param millis Time per position in milliseconds
+     * @param depth Deepest search per position
+     * @param budget Largest cost of a position whose replies are expanded
+     * @param plyCost Cost added for every ply
+     * @param maxPly Deepest ply to store
+     * @param maxPositions Stop once the book holds this many positions
+     */
+    public BookBuilder(Path bookFile, int threads, long millis, int depth, int budget, int plyCost,
+            int maxPly, int maxPositions) {
+        this.bookFile = bookFile;
+        this.manifestFile = Paths.get(bookFile + ".manifest");
+        this.threads = threads;
+        this.millis = millis;
+        this.depth = depth;
+        this.budget = budget;
+        this.plyCost = plyCost;
+        this.maxPly = maxPly;
+        this.maxPositions = maxPositions;
+    }
+
+
+    /**
+     * Load the last checkpoint if there is one, otherwise queue the new game
+     * position
+     *
+     * @throws IOException if a checkpoint exists but cannot be read
+     */
+    public synchronized void restore() throws IOException {
+        if (!Files.exists(this.manifestFile)) {
+            Board start = new Board();
+            this.frontier.add(new Leaf(start.getXDiscs(), start.getODiscs(), start.isXToMove(), 0, 0, 0));
+            return;
+        }
+        List<Segment> stored = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(this.manifestFile)))) {
+            if (in.readInt() != MANIFEST_MAGIC) {
+                throw new IOException(this.manifestFile + " is not a book manifest");
+            }
+            this.generation = in.readLong();
+            this.storedPositions = in.readInt();
+            this.frontierFile = this.bookFile.resolveSibling(in.readUTF());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                stored.add(new Segment(this.bookFile.resolveSibling(in.readUTF())));
+            }
+        }
+        this.segments = stored;
+        this.positions.set(this.storedPositions);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.frontierFile));
+        if (buffer.getInt() != FRONTIER_MAGIC) {
+            throw new IOException(this.frontierFile + " is not a book frontier");
+        }
+        long count = buffer.getLong();
+        for (long i = 0; i < count; i++) {
+            this.frontier.add(new Leaf(buffer.getLong(), buffer.getLong(), buffer.get() != 0,
+                    buffer.get(), buffer.getInt(), buffer.getInt()));
+        }
+        // Files from a checkpoint that crashed before its manifest was written
+        this.deleteUnlisted();
+    }
+
+
+    /**
+     * Build until the queue is empty or the book is full, writing a checkpoint
+     * at every interval and at the end
+     *
+     * @param checkpointSeconds Seconds between checkpoints
+     * @throws IOException if a checkpoint cannot be written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(long checkpointSeconds) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int startSize = this.positions.get();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            });
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(checkpointSeconds, TimeUnit.SECONDS)) {
+            this.checkpoint();
+            this.report(start, startSize);
+        }
+        this.finish();
+        this.report(start, startSize);
+    }
+
+
+    /**
+     * Ask the workers to stop. Positions being searched go back on the queue.
+     */
+    public void stop() {
+        this.stopped = true;
+        synchronized (this.searches) {
+            for (Search s : this.searches) {
+                s.stop();
+            }
+        }
+    }
+
+
+    /**
+     * Store the positions searched since the last checkpoint as a new
+     * segment, write the queue, and commit both by replacing the manifest
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        Path segmentFile = this.nextFile(".seg");
+        Path leavesFile = this.nextFile(".frontier");
+        Leaf[] leaves;
+        int stored;
+        // Workers wait while the new positions are written out, which takes
+        // time in proportion to them, not to the book
+        this.lock.writeLock().lock();
+        try {
+            OpeningBook.Entry[] added = this.entries.values().toArray(new OpeningBook.Entry[0]);
+            if (added.length > 0) {
+                OpeningBook.write(segmentFile, added);
+                List<Segment> next = new ArrayList<>(this.segments);
+                next.add(new Segment(segmentFile));
+                this.segments = next;
+            }
+            this.entries.clear();
+            this.claimed.clear();
+            leaves = this.frontier.toArray(new Leaf[0]);
+            stored = this.positions.get();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+
+        try (FileChannel channel = FileChannel.open(leavesFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(12 + leaves.length * LEAF_BYTES);
+            buffer.putInt(FRONTIER_MAGIC).putLong(leaves.length);
+            for (Leaf leaf : leaves) {
+                buffer.putLong(leaf.xDiscs).putLong(leaf.oDiscs).put((byte) (leaf.xToMove ? 1 : 0))
+                        .put((byte) leaf.ply).putInt(leaf.parentScore).putInt(leaf.parentCost);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        // Merge while the newest segment is at least half the size of the one
+        // before it, so each is less than half the size of the one before
+        List<Segment> current = this.segments;
+        int from = current.size() - 1;
+        while (from > 0 && current.get(from - 1).book.size() <= 2 * current.get(from).book.size()) {
+            this.merge(from - 1);
+            current = this.segments;
+            from = current.size() - 1;
+        }
+
+        this.frontierFile = leavesFile;
+        this.storedPositions = stored;
+        this.writeManifest();
+    }
+
+
+    /**
+     * Take a last checkpoint and write the book file from all the segments
+     *
+     * @throws IOException if a file cannot be written
+     */
+    public synchronized void finish() throws IOException {
+        this.checkpoint();
+        if (this.segments.size() > 1) {
+            this.merge(0);
+            this.writeManifest();
+        }
+        Path temp = Paths.get(this.bookFile + ".tmp");
+        Files.deleteIfExists(temp);
+        if (this.segments.isEmpty()) {
+            OpeningBook.write(temp, new OpeningBook.Entry[0]);
+        } else {
+            // The segment is never changed, only deleted, so the book can be
+            // a second link to it instead of a copy
+            Path segment = this.segments.get(0).file;
+            if (Files.exists(this.bookFile) && Files.isSameFile(segment, this.bookFile)) {
+                return;
+            }
+            try {
+                Files.createLink(temp, segment);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(segment, temp);
+            }
+        }
+        Files.move(temp, this.bookFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * @return Number of positions in the book so far
+     */
+    public int size() {
+        return this.positions.get();
+    }
+
+
+    // Worker loop: expand queued positions until there are none left anywhere
+    private void work() {
+        while (!this.stopped) {
+            Leaf leaf;
+            this.lock.readLock().lock();
+            this.busy.incrementAndGet();
+            try {
+                leaf = this.frontier.poll();
+                if (leaf != null) {
+                    this.expand(leaf);
+                }
+            } finally {
+                this.busy.decrementAndGet();
+                this.lock.readLock().unlock();
+            }
+            if (leaf == null) {
+                if (this.busy.get() == 0 && this.frontier.isEmpty()) {
+                    return;
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    // Search one position, store it and queue its replies if it is cheap enough
+    private void expand(Leaf leaf) {
+        Board board = new Board(leaf.xDiscs, leaf.oDiscs, leaf.xToMove);
+        boolean passed = false;
+        if (MoveGenerator.legalMoves(board) == 0) {
+            if (MoveGenerator.legalMoves(board.opponent(), board.player()) == 0) {
+                return;
+            }
+            board.switchSide();
+            passed = true;
+        }
+
+        long player = board.player();
+        long opponent = board.opponent();
+        int t = Symmetry.canonicalTransform(player, opponent);
+        long key = Symmetry.hash(Symmetry.transform(player, t), Symmetry.transform(opponent, t));
+        if (this.stored(key) != null || this.claimed.putIfAbsent(key, Boolean.TRUE) != null) {
+            this.countGame(key);
+            return;
+        }
+
+        SearchResult result = this.search.get().search(board, this.millis, this.depth);
+        if (this.stopped) {
+            this.claimed.remove(key);
+            this.frontier.add(leaf);
+            return;
+        }
+        this.entries.put(key, new OpeningBook.Entry(key, Symmetry.transformSquare(result.getMove(), t),
+                result.getDepth(), result.getScore() / OpeningBook.SCORE_SCALE, 1));
+        if (this.positions.incrementAndGet() >= this.maxPositions) {
+            this.stopped = true;
+        }
+
+        // Score the side to move here got, compared with what the parent
+        // expected from its best move
+        int score = passed ? -result.getScore() : result.getScore();
+        int cost = leaf.parentCost + this.plyCost;
+        if (leaf.ply > 0) {
+            cost += Math.max(0, leaf.parentScore + score);
+        }
+        if (cost > this.budget || leaf.ply + 1 >= this.maxPly) {
+            return;
+        }
+
+        long moves = MoveGenerator.legalMoves(player, opponent);
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            board.makeMove(square);
+            this.frontier.add(new Leaf(board.getXDiscs(), board.getODiscs(), board.isXToMove(),
+                    leaf.ply + 1, result.getScore(), cost));
+            board.unmakeMove();
+        }
+    }
+
+
+    // Another line reached a stored position: count it. A position stored at
+    // an earlier checkpoint gets a record of the extra games, which are
+    // added to it when the segments are merged.
+    private void countGame(long key) {
+        while (true) {
+            OpeningBook.Entry old = this.entries.get(key);
+            if (old == null) {
+                OpeningBook.Entry stored = this.stored(key);
+                if (stored == null || this.entries.putIfAbsent(key, new OpeningBook.Entry(key,
+                        stored.getMove(), stored.getDepth(), stored.getScore(), 1)) == null) {
+                    return;
+                }
+            } else if (this.entries.replace(key, old, new OpeningBook.Entry(key, old.getMove(),
+                    old.getDepth(), old.getScore(), old.getGames() + 1))) {
+                return;
+            }
+        }
+    }
+
+
+    // Record for a position stored at an earlier checkpoint, or null
+    private OpeningBook.Entry stored(long key) {
+        List<Segment> current = this.segments;
+        for (int i = current.size() - 1; i >= 0; i--) {
+            OpeningBook.Entry entry = current.get(i).book.lookup(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+
+    // Replace the segments from the given one to the newest with one merged
+    // segment. The files are deleted once the manifest no longer names them.
+    private void merge(int from) throws IOException {
+        List<Segment> current = this.segments;
+        List<OpeningBook> books = new ArrayList<>();
+        for (Segment segment : current.subList(from, current.size())) {
+            books.add(segment.book);
+        }
+        Path file = this.nextFile(".seg");
+        OpeningBook.merge(file, books);
+        List<Segment> next = new ArrayList<>(current.subList(0, from));
+        next.add(new Segment(file));
+        // The merged segment holds the same positions, so workers may use
+        // either until the swap
+        this.lock.writeLock().lock();
+        try {
+            this.segments = next;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        for (OpeningBook book : books) {
+            book.close();
+        }
+    }
+
+
+    // Commit the current segments and queue file, then delete the files the
+    // previous manifest named
+    private void writeManifest() throws IOException {
+        Path temp = Paths.get(this.manifestFile + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp)))) {
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeLong(this.generation);
+            out.writeInt(this.storedPositions);
+            out.writeUTF(this.frontierFile.getFileName().toString());
+            out.writeInt(this.segments.size());
+            for (Segment segment : this.segments) {
+                out.writeUTF(segment.file.getFileName().toString());
+            }
+        }
+        Files.move(temp, this.manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.deleteUnlisted();
+    }
+
+
+    // Delete segment and queue files that the manifest does not name
+    private void deleteUnlisted() throws IOException {
+        Set<Path> keep = new HashSet<>();
+        keep.add(this.frontierFile.getFileName());
+        for (Segment segment : this.segments) {
+            keep.add(segment.file.getFileName());
+        }
+        Path directory = this.bookFile.toAbsolutePath().getParent();
+        String prefix = this.bookFile.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && (name.endsWith(".seg") || name.endsWith(".frontier"))
+                        && !keep.contains(file.getFileName())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+
+    // A file name beside the book that no checkpoint has used
+    private Path nextFile(String extension) {
+        return Paths.get(this.bookFile + "." + this.generation++ + extension);
+    }
+
+
+    private void report(long start, int startSize) {
+        long nanos = System.nanoTime() - start;
+        int added = this.positions.get() - startSize;
+        System.out.printf("book %d positions in %d segments, %d queued, %.1f s, %.2f positions/s%n",
+                this.positions.get(), this.segments.size(), this.frontier.size(), nanos / 1e9,
+                added * 1e9 / Math.max(1, nanos));
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args Options as described in the class comment
+     * @throws Exception if the book cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        String book = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long millis = 1000;
+        int depth = Search.MAX_DEPTH;
+        int budget = 400;
+        int plyCost = 10;
+        int maxPly = 20;
+        int positions = 100000;
+        long checkpoint = 60;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--book=")) {
+                book = value;
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--millis=")) {
+                millis = Long.parseLong(value);
+            } else if (arg.startsWith("--depth=")) {
+                depth = Integer.parseInt(value);
+            } else if (arg.startsWith("--budget=")) {
+                budget = Integer.parseInt(value);
+            } else if (arg.startsWith("--ply-cost=")) {
+                plyCost = Integer.parseInt(value);
+            } else if (arg.startsWith("--max-ply=")) {
+                maxPly = Integer.parseInt(value);
+            } else if (arg.startsWith("--positions=")) {
+                positions = Integer.parseInt(value);
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpoint = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (book == null) {
+            throw new IllegalArgumentException("--book=FILE is required");
+        }
+
+        final BookBuilder builder = new BookBuilder(Paths.get(book), threads, millis, depth, budget,
+                plyCost, maxPly, positions);
+        builder.restore();
+        // On Ctrl-C, finish the positions in progress and save them
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                builder.stop();
+                try {
+                    builder.finish();
+                } catch (IOException e) {
+                    System.err.println("Checkpoint failed: " + e.getMessage());
+                }
+            }
+        });
+        builder.run(checkpoint);
+    }
+}
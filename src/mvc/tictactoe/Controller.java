@@ -1,6 +1,7 @@
 package mvc.tictactoe;
 
-import com.mrjaffesclass.apcs.messenger.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  *
@@ -13,69 +14,101 @@ import com.mrjaffesclass.apcs.messenger.*;
  * @author Roger Jaffe
  * @version 1.0
  */
-public class Controller implements MessageHandler {
+public class Controller {
 
-    private final Messenger mvcMessaging;
+    // Typed messages between the Model, View and computer player
+    private final MessageBus messageBus;
 
     /**
      * Controller constructor The Controller is responsible for creating the
-     * View and the Model that it will be controlling. The mvcMessaging object
+     * View and the Model that it will be controlling. The messageBus object
      * is passed to the view and the model and is used as a local messenger
-     * between the Controller, Model and View without have direct access to the
-     * View and Model. Remember, you want the three components separated so that
-     * one class works independently of the others.
+     * between the Model, View and computer player without them having direct
+     * access to each other. Remember, you want the three components separated
+     * so that one class works independently of the others.
      *
-     * Messages that can be received in the Controller: view:toggleButtonClick
-     * (sent by the View when the toggle button is clicked) view:buttonClick
-     * (sent by the View when the regular button is clicked) view:changeButton
-     * (sent by the View when the Up or Down buttons are clicked) Message that
-     * are sent from the Controller: controller:changeButton (sent by the
-     * Controller to notify the Model to change the value of a Model variable
+     * The Controller itself only wires the components up; it neither sends
+     * nor receives messages after that.
      */
     public Controller() {
-        // Create the local messaging class
-        mvcMessaging = new Messenger();
-
-        // Create the view and set it visible
-        View view = new View(mvcMessaging);    // This creates our view
-        view.init();
-        view.setVisible(true);
-
-        // Create the model
-        Model model = new Model(mvcMessaging);  // This creates our model
-        model.init();
+        this(null, 0, 0, 1, null, null);
     }
 
     /**
-     * Initialize the model here and subscribe to any required messages
+     * Controller constructor that also creates a computer opponent
      *
-     * "this" refers to this controller object.
+     * @param engineSide "X" or "O" for the side the computer plays, or null
+     * for two human players
+     * @param engineMillis Time the computer may think per move in milliseconds
+     * @param engineDepth Deepest search the computer runs per move
+     * @param engineThreads Number of threads the computer searches with
+     * @param bookFile Opening book file for the computer, or null for none
+     * @param indexFile Position index of archived games to look the board up
+     * in, or null for none
      */
-    public void init() {
-        // This is where you would subscribe to any messages the controller
-        // would need to process
-        // A sample subscriber call would be like...
-        mvcMessaging.subscribe("view:toggleButtonClick", this);
-    }
+    public Controller(String engineSide, long engineMillis, int engineDepth, int engineThreads,
+            String bookFile, String indexFile) {
+        // Create the local messaging class; run with -Dothello.log=debug to
+        // see every message
+        messageBus = new MessageBus();
 
-    @Override
-    public void messageHandler(String messageName, Object messagePayload) {
-        if (messagePayload != null) {
-            System.out.println("MSG: received by controller: " + messageName + " | " + messagePayload.toString());
-        } else {
-            System.out.println("MSG: received by controller: " + messageName + " | No data sent");
+        // Create the view and set it visible
+        View view = new View(messageBus);    // This creates our view
+        view.init();
+        view.setVisible(true);
+
+        // Create the computer opponent before the model publishes the board
+        if (engineSide != null) {
+            EnginePlayer engine = new EnginePlayer(messageBus, engineSide, engineMillis, engineDepth, engineThreads);
+            if (bookFile != null) {
+                try {
+                    engine.setBook(OpeningBook.open(Paths.get(bookFile)));
+                } catch (IOException e) {
+                    Log.log(Log.Level.WARN, "noBook", e.getMessage());
+                }
+            }
+            engine.init();
+        }
+
+        // Create the model. It handles its messages on a loop of its own so
+        // a click only queues the move and the Swing thread stays free
+        final EventLoop modelLoop = EventLoop.start("Model");
+        Model model = new Model(messageBus, modelLoop);  // This creates our model
+        model.init();
+        final EventLoop viewLoop = view.getEventLoop();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                if (Log.isEnabled(Log.Level.INFO)) {
+                    Log.log(Log.Level.INFO, "loopMetrics", modelLoop.toString());
+                    Log.log(Log.Level.INFO, "loopMetrics", viewLoop.toString());
+                }
+                Log.flush();
+            }
+        });
+        if (indexFile != null) {
+            messageBus.notify(MessageType.OPEN_INDEX, Paths.get(indexFile));
         }
-        // This is where the controller would handle any messages
     }
 
     /**
      * Program entry -- main is called when the program starts
      *
-     * @param args the command line arguments
+     * @param args the command line arguments: optionally the side the
+     * computer plays ("X" or "O"), its time per move in milliseconds (default
+     * 1000), its maximum search depth (default 60) and the number of threads
+     * it searches with (default one per processor), an opening book file and
+     * a position index file; "-" for the side or the book file means none
      */
     public static void main(String[] args) {
-        Controller app = new Controller();  // Create our controller...
-        app.init();                         // ...and init it too
+        String engineSide = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        long engineMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int engineDepth = args.length > 2 ? Integer.parseInt(args[2]) : Search.MAX_DEPTH;
+        int engineThreads = args.length > 3 ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        String bookFile = args.length > 4 && !args[4].equals("-") ? args[4] : null;
+        String indexFile = args.length > 5 ? args[5] : null;
+        new Controller(engineSide, engineMillis, engineDepth, engineThreads, bookFile, indexFile);
     }
 
 }
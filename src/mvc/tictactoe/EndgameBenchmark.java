@@ -0,0 +1,46 @@
+package mvc.tictactoe;
+
+/**
+ * Measures EndgameSolver throughput. A fixed, seeded set of positions with a
+ * given number of empty squares is solved one after another, and the time,
+ * nodes per second and result for each are printed, followed by totals.
+ *
+ * Usage: EndgameBenchmark [empties] [positions]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class EndgameBenchmark {
+
+    /**
+     * Program entry
+     *
+     * @param args empties (default 16) and number of positions (default 20)
+     */
+    public static void main(String[] args) {
+        int empties = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Board[] positions = RandomPositions.generate(60L + empties, count, empties);
+        EndgameSolver solver = new EndgameSolver();
+
+        // Warm up the JIT on easier positions first
+        for (Board position : RandomPositions.generate(1L, 20, Math.min(empties, 12))) {
+            solver.solve(position);
+        }
+
+        long nodes = 0;
+        long nanos = 0;
+        for (int i = 0; i < positions.length; i++) {
+            SearchResult result = solver.solve(positions[i]);
+            nodes += result.getNodes();
+            nanos += result.getNanos();
+            System.out.printf("#%-3d %s  %s  %8.1f ms%n", i + 1,
+                    result.getMove() == Board.PASS ? "ps" : SearchResult.toPosition(result.getMove()),
+                    (result.getScore() > 0 ? "+" : "") + result.getScore(),
+                    result.getNanos() / 1e6);
+        }
+        System.out.printf("%d positions with %d empties: %.1f ms total, %.2f positions/s, %d nodes, %d nps%n",
+                positions.length, empties, nanos / 1e6, positions.length * 1e9 / Math.max(1, nanos),
+                nodes, nodes * 1000000000L / Math.max(1, nanos));
+    }
+}
@@ -0,0 +1,398 @@
+package mvc.tictactoe;
+
+/**
+ * Perfect-play solver for positions with few empty squares. It searches to
+ * the end of the game and returns the exact final disc difference and a move
+ * that achieves it.
+ *
+ * Work is kept down by move ordering and by avoiding Board altogether: the
+ * solver passes the two disc masks down the recursion, so there is nothing to
+ * undo. Far from the end, moves that leave the opponent the fewest replies
+ * are tried first (fastest first). Closer to the end, moves in board
+ * quadrants with an odd number of empty squares are tried first (parity),
+ * since taking the last square in a region tends to be an advantage. The
+ * last four empty squares are handled by special routines that test each
+ * empty square directly instead of generating moves, and the very last empty
+ * square is scored without making any move at all.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class EndgameSolver {
+
+    /** Default number of empty squares at or below which Search switches to the solver */
+    public static final int DEFAULT_EMPTIES = 16;
+
+    // Larger than any disc difference
+    private static final int INFINITY = 100;
+
+    // Order moves fastest first at or above this many empties, by parity below
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+
+    // Use the special routines at or below this many empties
+    private static final int SHALLOW_EMPTIES = 4;
+
+    // Cache results at or above this many empties
+    private static final int TABLE_EMPTIES = 10;
+
+    private static final int CHECK_INTERVAL = 4096;
+
+    // Squares of each 4x4 quadrant of the board
+    private static final long[] QUADRANTS = {
+        0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+
+    private static final long CORNERS = 0x8100000000000081L;
+
+    private final TranspositionTable table;
+
+    // Move lists and ordering keys for each number of empties
+    private final int[][] moveLists = new int[Board.SQUARES][Board.SQUARES];
+    private final int[][] moveKeys = new int[Board.SQUARES][Board.SQUARES];
+
+    private long nodes;
+    private long deadline;
+    private volatile boolean stopped;
+
+
+    /**
+     * EndgameSolver constructor: uses its own transposition table of the
+     * default size
+     */
+    public EndgameSolver() {
+        this(new TranspositionTable(Search.DEFAULT_TABLE_MB));
+    }
+
+
+    /**
+     * EndgameSolver constructor
+     *
+     * @param table Transposition table to cache results in. Entries are keyed
+     * differently from Search's, so the two must not share a table.
+     */
+    public EndgameSolver(TranspositionTable table) {
+        this.table = table;
+    }
+
+
+    /**
+     * Solve a position with no time limit
+     *
+     * @param position Position to solve; it is not changed
+     * @return Best move and the exact final disc difference for the side to
+     * move, or a PASS result if the side to move has no legal move
+     */
+    public SearchResult solve(Board position) {
+        return this.solve(position, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Solve a position, giving up at a deadline
+     *
+     * @param position Position to solve; it is not changed
+     * @param deadline System.nanoTime() value to give up at
+     * @return Best move and the exact final disc difference for the side to
+     * move, a PASS result if the side to move has no legal move, or null if
+     * the deadline passed or stop() was called first
+     */
+    public SearchResult solve(Board position, long deadline) {
+        this.stopped = false;
+        return this.run(position, deadline);
+    }
+
+
+    /**
+     * Solve without clearing a pending stop request, so a stop that arrives
+     * just before the solve starts is not lost. Used by Search.
+     *
+     * @param position Position to solve; it is not changed
+     * @param deadline System.nanoTime() value to give up at
+     * @return As for solve, null if stopped
+     */
+    SearchResult run(Board position, long deadline) {
+        long start = System.nanoTime();
+        this.nodes = 0;
+        this.deadline = deadline;
+        this.table.newSearch();
+
+        long player = position.player();
+        long opponent = position.opponent();
+        int empties = Long.bitCount(position.empty());
+        long moves = MoveGenerator.legalMoves(player, opponent);
+        if (moves == 0) {
+            int score = -this.negamax(opponent, player, -INFINITY, INFINITY, empties, true);
+            return this.stopped ? null
+                    : new SearchResult(Board.PASS, score, empties, this.nodes, System.nanoTime() - start);
+        }
+
+        int[] list = this.moveLists[empties];
+        int count = this.orderFastestFirst(player, opponent, moves, list, this.moveKeys[empties]);
+        int alpha = -INFINITY;
+        int bestMove = list[0];
+        for (int i = 0; i < count; i++) {
+            int square = list[i];
+            long flips = Flips.flips(player, opponent, square);
+            long nextPlayer = opponent ^ flips;
+            long nextOpponent = player ^ flips ^ Board.bit(square);
+            int score;
+            if (i == 0) {
+                score = -this.negamax(nextPlayer, nextOpponent, -INFINITY, INFINITY, empties - 1, false);
+            } else {
+                score = -this.negamax(nextPlayer, nextOpponent, -alpha - 1, -alpha, empties - 1, false);
+                if (score > alpha) {
+                    score = -this.negamax(nextPlayer, nextOpponent, -INFINITY, -score + 1, empties - 1, false);
+                }
+            }
+            if (this.stopped) {
+                return null;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = square;
+            }
+        }
+        return new SearchResult(bestMove, alpha, empties, this.nodes, System.nanoTime() - start);
+    }
+
+
+    /**
+     * Ask a running solve to give up as soon as possible
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+
+    /**
+     * Clear a stop request before calling run
+     */
+    void clearStop() {
+        this.stopped = false;
+    }
+
+
+    /**
+     * @return Nodes visited by the current or last solve
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+
+    private int negamax(long player, long opponent, int alpha, int beta, int empties, boolean passed) {
+        if (empties <= SHALLOW_EMPTIES) {
+            return this.solveShallow(player, opponent, alpha, beta, ~(player | opponent), passed);
+        }
+        this.nodes++;
+        if ((this.nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > this.deadline) {
+            this.stopped = true;
+        }
+        if (this.stopped) {
+            return 0;
+        }
+
+        long moves = MoveGenerator.legalMoves(player, opponent);
+        if (moves == 0) {
+            if (passed) {
+                return Search.discDifference(player, opponent);
+            }
+            return -this.negamax(opponent, player, -beta, -alpha, empties, true);
+        }
+
+        long key = 0;
+        int hashMove = -1;
+        if (empties >= TABLE_EMPTIES) {
+            key = hash(player, opponent);
+            long entry = this.table.probe(key);
+            if (entry != 0) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+                hashMove = TranspositionTable.move(entry);
+            }
+        }
+
+        int[] list = this.moveLists[empties];
+        int count = empties >= FASTEST_FIRST_EMPTIES
+                ? this.orderFastestFirst(player, opponent, moves, list, this.moveKeys[empties])
+                : orderByParity(player, opponent, moves, list);
+        if (hashMove >= 0 && hashMove != Board.PASS) {
+            moveToFront(list, count, hashMove);
+        }
+
+        int alphaStart = alpha;
+        int best = -INFINITY;
+        int bestMove = list[0];
+        for (int i = 0; i < count; i++) {
+            int square = list[i];
+            long flips = Flips.flips(player, opponent, square);
+            long nextPlayer = opponent ^ flips;
+            long nextOpponent = player ^ flips ^ Board.bit(square);
+            int score;
+            if (i == 0) {
+                score = -this.negamax(nextPlayer, nextOpponent, -beta, -alpha, empties - 1, false);
+            } else {
+                score = -this.negamax(nextPlayer, nextOpponent, -alpha - 1, -alpha, empties - 1, false);
+                if (score > alpha && score < beta) {
+                    score = -this.negamax(nextPlayer, nextOpponent, -beta, -alpha, empties - 1, false);
+                }
+            }
+            if (this.stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = square;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (empties >= TABLE_EMPTIES) {
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > alphaStart ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            this.table.store(key, best, empties, bound, bestMove);
+        }
+        return best;
+    }
+
+
+    // Solve the last few empties by trying each empty square directly, odd
+    // quadrants first
+    private int solveShallow(long player, long opponent, int alpha, int beta, long empty, boolean passed) {
+        if (empty == 0) {
+            return Search.discDifference(player, opponent);
+        }
+        if ((empty & (empty - 1)) == 0) {
+            return this.solveLast(player, opponent, Long.numberOfTrailingZeros(empty));
+        }
+        this.nodes++;
+
+        long odd = oddQuadrants(empty);
+        int best = -INFINITY;
+        for (int group = 0; group < 2; group++) {
+            long squares = group == 0 ? empty & odd : empty & ~odd;
+            while (squares != 0) {
+                int square = Long.numberOfTrailingZeros(squares);
+                squares &= squares - 1;
+                long flips = Flips.flips(player, opponent, square);
+                if (flips == 0) {
+                    continue;
+                }
+                long placed = Board.bit(square);
+                int score = -this.solveShallow(opponent ^ flips, player ^ flips ^ placed,
+                        -beta, -Math.max(alpha, best), empty ^ placed, false);
+                if (score > best) {
+                    best = score;
+                    if (best >= beta) {
+                        return best;
+                    }
+                }
+            }
+        }
+
+        if (best == -INFINITY) {
+            if (passed) {
+                return Search.discDifference(player, opponent);
+            }
+            return -this.solveShallow(opponent, player, -beta, -alpha, empty, true);
+        }
+        return best;
+    }
+
+
+    // Final disc difference with one empty square left, counting discs
+    // instead of making the move
+    private int solveLast(long player, long opponent, int square) {
+        this.nodes++;
+        int playerDiscs = Long.bitCount(player);
+        int opponentDiscs = Board.SQUARES - 1 - playerDiscs;
+        int flipped = Long.bitCount(Flips.flips(player, opponent, square));
+        if (flipped != 0) {
+            return playerDiscs - opponentDiscs + 2 * flipped + 1;
+        }
+        flipped = Long.bitCount(Flips.flips(opponent, player, square));
+        if (flipped != 0) {
+            return playerDiscs - opponentDiscs - 2 * flipped - 1;
+        }
+        int diff = playerDiscs - opponentDiscs;
+        return diff > 0 ? diff + 1 : diff < 0 ? diff - 1 : 0;
+    }
+
+
+    // Fill list with the moves sorted by how many replies they leave the
+    // opponent, corner replies counting double. Returns the number of moves.
+    private int orderFastestFirst(long player, long opponent, long moves, int[] list, int[] keys) {
+        int count = 0;
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flips = Flips.flips(player, opponent, square);
+            long replies = MoveGenerator.legalMoves(opponent ^ flips, player ^ flips ^ Board.bit(square));
+            int key = Long.bitCount(replies) + Long.bitCount(replies & CORNERS);
+            int i = count++;
+            while (i > 0 && keys[i - 1] > key) {
+                list[i] = list[i - 1];
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            list[i] = square;
+            keys[i] = key;
+        }
+        return count;
+    }
+
+
+    // Fill list with the moves in odd quadrants first. Returns the number of
+    // moves.
+    private static int orderByParity(long player, long opponent, long moves, int[] list) {
+        long odd = oddQuadrants(~(player | opponent));
+        int count = 0;
+        for (long squares = moves & odd; squares != 0; squares &= squares - 1) {
+            list[count++] = Long.numberOfTrailingZeros(squares);
+        }
+        for (long squares = moves & ~odd; squares != 0; squares &= squares - 1) {
+            list[count++] = Long.numberOfTrailingZeros(squares);
+        }
+        return count;
+    }
+
+
+    private static void moveToFront(int[] list, int count, int square) {
+        for (int i = 1; i < count; i++) {
+            if (list[i] == square) {
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = square;
+                return;
+            }
+        }
+    }
+
+
+    // Squares of every quadrant holding an odd number of empty squares
+    private static long oddQuadrants(long empty) {
+        long odd = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                odd |= quadrant;
+            }
+        }
+        return odd;
+    }
+
+
+    // Table key for a player/opponent pair
+    private static long hash(long player, long opponent) {
+        long h = player * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opponent * 0xC2B2AE3D27D4EB4FL, 31);
+        return h ^ (h >>> 29);
+    }
+}
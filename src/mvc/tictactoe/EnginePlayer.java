@@ -0,0 +1,146 @@
+package mvc.tictactoe;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+
+/**
+ * A computer opponent. It listens for boardChange like the View does, and
+ * when it is its turn it searches the position off the Swing thread with a
+ * ParallelSearch and sends its reply as an ordinary playerMove message, just
+ * as if the View had sent a click. If it has an opening book and the position
+ * is in it, the book move is played without searching.
+ *
+ * Messages that can be received: boardChange. Messages that are sent:
+ * playerMove.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class EnginePlayer {
+
+    private final MessageBus mvcMessaging;
+    private final boolean playsX;
+    private final long timeMillis;
+    private final int maxDepth;
+
+    private final ParallelSearch search;
+    private final ExecutorService worker;
+
+    // Opening book consulted before searching, or null for none
+    private volatile OpeningBook book;
+
+    // Bumped on every boardChange so a reply to an old position is dropped
+    private volatile int generation;
+
+
+    /**
+     * EnginePlayer constructor
+     *
+     * @param messages Messaging class shared with the Model and View
+     * @param side "X" or "O", the side the engine plays
+     * @param timeMillis Time budget per move in milliseconds
+     * @param maxDepth Deepest search iteration per move
+     * @param threads Number of threads to search with
+     */
+    public EnginePlayer(MessageBus messages, String side, long timeMillis, int maxDepth, int threads) {
+        this.mvcMessaging = messages;
+        this.playsX = side.equals("X");
+        this.timeMillis = timeMillis;
+        this.maxDepth = maxDepth;
+        this.search = new ParallelSearch(threads, Search.DEFAULT_TABLE_MB * threads);
+        this.worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "EnginePlayer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    /**
+     * Subscribe to the messages the engine needs
+     */
+    public void init() {
+        this.mvcMessaging.subscribe(MessageType.BOARD_CHANGE, new MessageListener<BoardChange>() {
+            @Override
+            public void onMessage(BoardChange change) {
+                boardChange(change);
+            }
+        });
+    }
+
+
+    /**
+     * Set the opening book to play from
+     *
+     * @param book Opening book, or null to always search
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+
+    // Start thinking if the new position is the engine's to move
+    private void boardChange(BoardChange change) {
+        final int thisGeneration = ++this.generation;
+        this.search.stop();
+        if (change.isXToMove() != this.playsX) {
+            return;
+        }
+        final Board position = change.toBoard();
+        if (MoveGenerator.legalMoves(position) == 0) {
+            return;
+        }
+        this.worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                think(position, thisGeneration);
+            }
+        });
+    }
+
+
+    // Runs on the worker thread
+    private void think(Board position, final int thisGeneration) {
+        // Clear the previous stop before checking the generation: a
+        // boardChange after the check then stops this search, and one before
+        // it is seen by the check
+        this.search.clearStop();
+        if (thisGeneration != this.generation) {
+            return;
+        }
+        int square;
+        OpeningBook.Entry entry = this.book != null ? this.book.probe(position) : null;
+        if (entry != null) {
+            square = entry.getMove();
+            if (Log.isEnabled(Log.Level.INFO)) {
+                Log.log(Log.Level.INFO, "bookMove", "move=" + SearchResult.toPosition(square)
+                        + " score=" + entry.getScore() + " depth=" + entry.getDepth() + " games=" + entry.getGames());
+            }
+        } else {
+            SearchResult result = this.search.iterate(position, this.timeMillis, this.maxDepth);
+            if (Log.isEnabled(Log.Level.INFO)) {
+                Log.log(Log.Level.INFO, "search", result + " tt hits " + this.search.getTableHits()
+                        + " misses " + this.search.getTableMisses());
+            }
+            square = result.getMove();
+        }
+        if (square == Board.PASS) {
+            return;
+        }
+        final PlayerMove move = PlayerMove.of(square);
+        // Hand the move over on the Swing thread, the same way a click arrives
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (thisGeneration == generation) {
+                    mvcMessaging.notify(MessageType.PLAYER_MOVE, move);
+                }
+            }
+        });
+    }
+}
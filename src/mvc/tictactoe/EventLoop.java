@@ -0,0 +1,147 @@
+package mvc.tictactoe;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs message deliveries one at a time, in the order they were queued, on
+ * one thread: either a thread of its own or the Swing event dispatch thread.
+ * A component that subscribes through a loop gets its messages in the order
+ * they were sent, and never two at once. The Model runs on a loop of its own
+ * so a click only queues the move and the event dispatch thread is free
+ * again straight away; the View's updates are queued back onto the event
+ * dispatch thread.
+ *
+ * The loop counts the deliveries waiting, the most that have ever been
+ * waiting and the deliveries run, so a loop that falls behind shows up.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class EventLoop implements Executor {
+
+    private final String name;
+    private final Executor executor;
+    private final ExecutorService thread;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+
+
+    private EventLoop(String name, Executor executor, ExecutorService thread) {
+        this.name = name;
+        this.executor = executor;
+        this.thread = thread;
+    }
+
+
+    /**
+     * Create a loop with a thread of its own
+     *
+     * @param name Name of the thread
+     * @return The loop
+     */
+    public static EventLoop start(final String name) {
+        ExecutorService thread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread loop = new Thread(r, name);
+                loop.setDaemon(true);
+                return loop;
+            }
+        });
+        return new EventLoop(name, thread, thread);
+    }
+
+
+    /**
+     * Create a loop that runs on the Swing event dispatch thread
+     *
+     * @param name Name shown in the metrics
+     * @return The loop
+     */
+    public static EventLoop swing(String name) {
+        return new EventLoop(name, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                SwingUtilities.invokeLater(task);
+            }
+        }, null);
+    }
+
+
+    /**
+     * Queue a task behind the ones already waiting
+     *
+     * @param task Task to run on the loop's thread
+     */
+    @Override
+    public void execute(final Runnable task) {
+        int waiting = this.depth.incrementAndGet();
+        int peak = this.peakDepth.get();
+        while (waiting > peak && !this.peakDepth.compareAndSet(peak, waiting)) {
+            peak = this.peakDepth.get();
+        }
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                depth.decrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Keep the loop going for the messages behind this one
+                    Log.log(Log.Level.ERROR, "listenerFailed", "loop=" + name, e);
+                }
+                delivered.incrementAndGet();
+            }
+        });
+    }
+
+
+    /**
+     * @return Deliveries queued and not yet started
+     */
+    public int getDepth() {
+        return this.depth.get();
+    }
+
+
+    /**
+     * @return Most deliveries that have been waiting at one time
+     */
+    public int getPeakDepth() {
+        return this.peakDepth.get();
+    }
+
+
+    /**
+     * @return Deliveries run so far
+     */
+    public long getDelivered() {
+        return this.delivered.get();
+    }
+
+
+    /**
+     * Stop the loop's own thread once the queued deliveries are done; a
+     * Swing loop is left alone
+     */
+    public void shutdown() {
+        if (this.thread != null) {
+            this.thread.shutdown();
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return this.name + ": " + this.getDelivered() + " delivered, " + this.getDepth() + " waiting, peak "
+                + this.getPeakDepth();
+    }
+}
@@ -0,0 +1,68 @@
+package mvc.tictactoe;
+
+/**
+ * Computes every disc turned over by a move as a single mask. For each square
+ * and each of the eight Directions a ray mask is precomputed, so a direction
+ * costs one lookup to find the first square that is not an opponent disc and
+ * one more to cut the ray off there; no squares are visited one by one.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class Flips {
+
+    // RAYS[d][sq] is every square strictly beyond sq in direction d. Index 64
+    // stands for "no square" and holds an empty ray.
+    private static final long[][] RAYS = new long[8][Board.SQUARES + 1];
+
+    // true for directions that walk towards higher square numbers
+    private static final boolean[] ASCENDING = new boolean[8];
+
+    static {
+        for (int d = 0; d < Directions.points.length; d++) {
+            int dRow = Directions.points[d][0];
+            int dCol = Directions.points[d][1];
+            ASCENDING[d] = dRow * Board.SIZE + dCol > 0;
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                long ray = 0;
+                int row = sq / Board.SIZE + dRow;
+                int col = sq % Board.SIZE + dCol;
+                while (row >= 0 && row < Board.SIZE && col >= 0 && col < Board.SIZE) {
+                    ray |= Board.bit(Board.square(row, col));
+                    row += dRow;
+                    col += dCol;
+                }
+                RAYS[d][sq] = ray;
+            }
+        }
+    }
+
+
+    private Flips() {
+    }
+
+
+    /**
+     * Discs flipped if the player moves to a square. The square is assumed to
+     * be empty; an illegal move simply flips nothing.
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @param square Square index 0-63
+     * @return Mask of the opponent discs that would be turned over
+     */
+    public static long flips(long player, long opponent, int square) {
+        long flipped = 0;
+        long notOpponent = ~opponent;
+        for (int d = 0; d < 8; d++) {
+            long ray = RAYS[d][square];
+            long blockers = ray & notOpponent;
+            long first = ASCENDING[d] ? blockers & -blockers : Long.highestOneBit(blockers);
+            if ((first & player) != 0) {
+                // ray up to and including first, then drop first itself
+                flipped |= ray ^ RAYS[d][Long.numberOfTrailingZeros(first)] ^ first;
+            }
+        }
+        return flipped;
+    }
+}
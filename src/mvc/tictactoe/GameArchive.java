@@ -0,0 +1,532 @@
+package mvc.tictactoe;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary archive of complete games, all starting from the new game
+ * position. Each game takes a 6 byte header plus one byte per move, the
+ * square played; passes are not stored because replaying the moves shows
+ * where they fall.
+ *
+ * File layout (big-endian): a 16 byte header of magic "OGA1", version and
+ * games per block; the blocks; a trailer; and a 24 byte footer. A block is
+ * its game count (4) and payload length (4) followed by its games. A game is
+ * move count (1), result as X discs minus O discs with the empty squares going
+ * to the winner (1, signed), X player (2), O player (2) and the moves. The
+ * trailer holds the player names (count, then each as a 2 byte length and
+ * UTF-8 bytes) and the block index (count, then the file offset and first
+ * game number of each block). The footer is the trailer offset (8), game
+ * count (8), reserved (4) and the magic again (4).
+ *
+ * The Reader decodes a whole block per read into one reused buffer and hands
+ * out games through a cursor, so reading creates no objects per game. An
+ * archive whose writer never closed it still reads up to its last whole
+ * block.
+ *
+ * Usage: GameArchive FILE (prints the archive's size and decoding speed)
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class GameArchive {
+
+    /** "OGA1" */
+    public static final int MAGIC = 0x4F474131;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 16;
+
+    public static final int FOOTER_BYTES = 24;
+
+    /** Bytes in a game record before its moves */
+    public static final int GAME_HEADER_BYTES = 6;
+
+    /** Most moves a game can have */
+    public static final int MAX_MOVES = Board.SQUARES - 4;
+
+    /** Games per block when none is given */
+    public static final int DEFAULT_BLOCK_GAMES = 4096;
+
+    // Bytes in a block header
+    private static final int BLOCK_HEADER_BYTES = 8;
+
+
+    private GameArchive() {
+    }
+
+    /**
+     * Writes games one at a time. Games are collected into a block and the
+     * block is written when it is full; the player names and block index
+     * are written on close.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer block;
+        private final int blockGames;
+        private int gamesInBlock;
+        private long games;
+
+        private final Map<String, Integer> playerIds = new HashMap<>();
+        private final List<String> players = new ArrayList<>();
+        private long[] blockOffsets = new long[64];
+        private long[] blockFirstGames = new long[64];
+        private int blocks;
+
+
+        /**
+         * Writer constructor: creates or replaces the file
+         *
+         * @param file File to write
+         * @param blockGames Games per block
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(Path file, int blockGames) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.blockGames = blockGames;
+            this.block = ByteBuffer.allocateDirect(BLOCK_HEADER_BYTES
+                    + blockGames * (GAME_HEADER_BYTES + MAX_MOVES));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(blockGames).putInt(0).flip();
+            this.write(header);
+            this.block.position(BLOCK_HEADER_BYTES);
+        }
+
+
+        /**
+         * Look up or add a player name
+         *
+         * @param name Player name
+         * @return Id to pass to addGame
+         */
+        public int player(String name) {
+            Integer id = this.playerIds.get(name);
+            if (id == null) {
+                if (this.players.size() > 0xFFFF) {
+                    throw new IllegalStateException("Too many players");
+                }
+                id = this.players.size();
+                this.playerIds.put(name, id);
+                this.players.add(name);
+            }
+            return id;
+        }
+
+
+        /**
+         * Add a game
+         *
+         * @param moves Squares played, without passes
+         * @param count Number of moves
+         * @param playerX Id of the X player
+         * @param playerO Id of the O player
+         * @param result X discs minus O discs at the end
+         * @throws IOException if a full block cannot be written
+         */
+        public void addGame(byte[] moves, int count, int playerX, int playerO, int result) throws IOException {
+            this.addGame(moves, 0, count, playerX, playerO, result);
+        }
+
+
+        /**
+         * Add a game whose moves are part of a larger array
+         *
+         * @param moves Array holding the squares played, without passes
+         * @param offset Index of the first move in the array
+         * @param count Number of moves
+         * @param playerX Id of the X player
+         * @param playerO Id of the O player
+         * @param result X discs minus O discs at the end
+         * @throws IOException if a full block cannot be written
+         */
+        public void addGame(byte[] moves, int offset, int count, int playerX, int playerO, int result)
+                throws IOException {
+            if (count > MAX_MOVES) {
+                throw new IllegalArgumentException("Game has " + count + " moves");
+            }
+            if (this.gamesInBlock == 0) {
+                if (this.blocks == this.blockOffsets.length) {
+                    this.blockOffsets = Arrays.copyOf(this.blockOffsets, this.blocks * 2);
+                    this.blockFirstGames = Arrays.copyOf(this.blockFirstGames, this.blocks * 2);
+                }
+                this.blockOffsets[this.blocks] = this.channel.position();
+                this.blockFirstGames[this.blocks] = this.games;
+                this.blocks++;
+            }
+            this.block.put((byte) count);
+            this.block.put((byte) result);
+            this.block.putShort((short) playerX);
+            this.block.putShort((short) playerO);
+            this.block.put(moves, offset, count);
+            this.games++;
+            if (++this.gamesInBlock == this.blockGames) {
+                this.flushBlock();
+            }
+        }
+
+
+        /**
+         * Add the game played on a board from the new game position
+         *
+         * @param board Board whose move history is the whole game
+         * @param playerX Id of the X player
+         * @param playerO Id of the O player
+         * @throws IOException if a full block cannot be written
+         */
+        public void addGame(Board board, int playerX, int playerO) throws IOException {
+            byte[] moves = new byte[MAX_MOVES];
+            int count = 0;
+            for (int ply = 0; ply < board.getPly(); ply++) {
+                if (board.getMove(ply) != Board.PASS) {
+                    moves[count++] = (byte) board.getMove(ply);
+                }
+            }
+            this.addGame(moves, count, playerX, playerO,
+                    Search.discDifference(board.getXDiscs(), board.getODiscs()));
+        }
+
+
+        /**
+         * @return Games added so far
+         */
+        public long getGames() {
+            return this.games;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (this.gamesInBlock > 0) {
+                    this.flushBlock();
+                }
+                long trailerOffset = this.channel.position();
+                int size = 8 + this.blocks * 16;
+                List<byte[]> names = new ArrayList<>(this.players.size());
+                for (String name : this.players) {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    names.add(bytes.length > 0xFFFF ? Arrays.copyOf(bytes, 0xFFFF) : bytes);
+                    size += 2 + names.get(names.size() - 1).length;
+                }
+                ByteBuffer trailer = ByteBuffer.allocate(size + FOOTER_BYTES);
+                trailer.putInt(names.size());
+                for (byte[] name : names) {
+                    trailer.putShort((short) name.length).put(name);
+                }
+                trailer.putInt(this.blocks);
+                for (int i = 0; i < this.blocks; i++) {
+                    trailer.putLong(this.blockOffsets[i]).putLong(this.blockFirstGames[i]);
+                }
+                trailer.putLong(trailerOffset).putLong(this.games).putInt(0).putInt(MAGIC).flip();
+                this.write(trailer);
+            } finally {
+                this.channel.close();
+            }
+        }
+
+
+        private void flushBlock() throws IOException {
+            this.block.putInt(0, this.gamesInBlock);
+            this.block.putInt(4, this.block.position() - BLOCK_HEADER_BYTES);
+            this.block.flip();
+            this.write(this.block);
+            this.block.clear();
+            this.block.position(BLOCK_HEADER_BYTES);
+            this.gamesInBlock = 0;
+        }
+
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                this.channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Reads games in file order through a cursor: next moves to the following
+     * game and the getters describe it until the next call
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final long end;
+        private final long gameCount;
+        private final String[] players;
+        private final long[] blockOffsets;
+        private final long[] blockFirstGames;
+
+        private ByteBuffer block = ByteBuffer.allocateDirect(1 << 16);
+        private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        private long nextBlock = HEADER_BYTES;
+        private int gamesLeft;
+        private long gameNumber = -1;
+
+        // Current game
+        private int offset;
+        private int moveCount;
+
+
+        /**
+         * Reader constructor
+         *
+         * @param file Archive to read
+         * @throws IOException if the file cannot be read or is not an archive
+         */
+        public Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                this.readFully(header, 0);
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException(file + " is not a game archive");
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException(file + " has unsupported archive version " + header.getInt(4));
+                }
+
+                long size = this.channel.size();
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+                if (size >= HEADER_BYTES + FOOTER_BYTES) {
+                    this.readFully(footer, size - FOOTER_BYTES);
+                }
+                if (footer.getInt(FOOTER_BYTES - 4) == MAGIC) {
+                    this.end = footer.getLong(0);
+                    this.gameCount = footer.getLong(8);
+                    ByteBuffer trailer = ByteBuffer.allocate((int) (size - FOOTER_BYTES - this.end));
+                    this.readFully(trailer, this.end);
+                    trailer.flip();
+                    this.players = new String[trailer.getInt()];
+                    for (int i = 0; i < this.players.length; i++) {
+                        byte[] name = new byte[trailer.getShort() & 0xFFFF];
+                        trailer.get(name);
+                        this.players[i] = new String(name, StandardCharsets.UTF_8);
+                    }
+                    int blocks = trailer.getInt();
+                    this.blockOffsets = new long[blocks];
+                    this.blockFirstGames = new long[blocks];
+                    for (int i = 0; i < blocks; i++) {
+                        this.blockOffsets[i] = trailer.getLong();
+                        this.blockFirstGames[i] = trailer.getLong();
+                    }
+                } else {
+                    // Never closed: no names or index, read the blocks there are
+                    this.end = size;
+                    this.gameCount = -1;
+                    this.players = new String[0];
+                    this.blockOffsets = new long[0];
+                    this.blockFirstGames = new long[0];
+                }
+            } catch (IOException | RuntimeException e) {
+                this.channel.close();
+                throw e;
+            }
+        }
+
+
+        /**
+         * Move to the next game
+         *
+         * @return false if there are no more games
+         * @throws IOException if the file cannot be read
+         */
+        public boolean next() throws IOException {
+            if (this.gamesLeft == 0) {
+                if (!this.readBlock()) {
+                    return false;
+                }
+            } else {
+                this.offset += GAME_HEADER_BYTES + this.moveCount;
+            }
+            this.gamesLeft--;
+            this.gameNumber++;
+            this.moveCount = this.block.get(this.offset) & 0xFF;
+            return true;
+        }
+
+
+        /**
+         * Position the cursor so that the next call to next returns a given
+         * game. Uses the block index, then skips within the block.
+         *
+         * @param game Game number, from 0
+         * @throws IOException if the file cannot be read
+         */
+        public void seek(long game) throws IOException {
+            int index = Arrays.binarySearch(this.blockFirstGames, game);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            if (index < 0) {
+                this.nextBlock = HEADER_BYTES;
+                this.gameNumber = -1;
+            } else {
+                this.nextBlock = this.blockOffsets[index];
+                this.gameNumber = this.blockFirstGames[index] - 1;
+            }
+            this.gamesLeft = 0;
+            // Skip to the game before the one wanted
+            while (this.gameNumber + 1 < game) {
+                if (!this.next()) {
+                    break;
+                }
+            }
+        }
+
+
+        /**
+         * @return Number of the current game, from 0
+         */
+        public long getGameNumber() {
+            return this.gameNumber;
+        }
+
+
+        public int getMoveCount() {
+            return this.moveCount;
+        }
+
+
+        /**
+         * @param index Move number in the current game, from 0
+         * @return Square played, 0-63
+         */
+        public int getMove(int index) {
+            return this.block.get(this.offset + GAME_HEADER_BYTES + index);
+        }
+
+
+        /**
+         * Copy the moves of the current game
+         *
+         * @param moves Array of at least getMoveCount() bytes
+         */
+        public void getMoves(byte[] moves) {
+            for (int i = 0; i < this.moveCount; i++) {
+                moves[i] = this.block.get(this.offset + GAME_HEADER_BYTES + i);
+            }
+        }
+
+
+        /**
+         * @return X discs minus O discs at the end of the current game
+         */
+        public int getResult() {
+            return this.block.get(this.offset + 1);
+        }
+
+
+        public int getPlayerX() {
+            return this.block.getShort(this.offset + 2) & 0xFFFF;
+        }
+
+
+        public int getPlayerO() {
+            return this.block.getShort(this.offset + 4) & 0xFFFF;
+        }
+
+
+        /**
+         * @param id Player id from getPlayerX or getPlayerO
+         * @return The player's name, or null if it is not known
+         */
+        public String getPlayerName(int id) {
+            return id < this.players.length ? this.players[id] : null;
+        }
+
+
+        /**
+         * @return Games in the archive, or -1 if it was never closed
+         */
+        public long getGameCount() {
+            return this.gameCount;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+
+        // Read the next whole block into the buffer
+        private boolean readBlock() throws IOException {
+            if (this.nextBlock + BLOCK_HEADER_BYTES > this.end) {
+                return false;
+            }
+            this.blockHeader.clear();
+            this.readFully(this.blockHeader, this.nextBlock);
+            int games = this.blockHeader.getInt(0);
+            int bytes = this.blockHeader.getInt(4);
+            if (games <= 0 || this.nextBlock + BLOCK_HEADER_BYTES + bytes > this.end) {
+                return false;
+            }
+            if (this.block.capacity() < bytes) {
+                this.block = ByteBuffer.allocateDirect(Math.max(bytes, this.block.capacity() * 2));
+            }
+            this.block.clear();
+            this.block.limit(bytes);
+            this.readFully(this.block, this.nextBlock + BLOCK_HEADER_BYTES);
+            this.nextBlock += BLOCK_HEADER_BYTES + bytes;
+            this.gamesLeft = games;
+            this.offset = 0;
+            return true;
+        }
+
+
+        private void readFully(ByteBuffer target, long position) throws IOException {
+            while (target.hasRemaining()) {
+                int read = this.channel.read(target, position);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                position += read;
+            }
+        }
+    }
+
+
+    /**
+     * Program entry: read every game of an archive and report the speed
+     *
+     * @param args Archive file
+     * @throws IOException if the archive cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args[0]);
+        long start = System.nanoTime();
+        long games = 0;
+        long moves = 0;
+        long checksum = 0;
+        try (Reader reader = new Reader(file)) {
+            while (reader.next()) {
+                games++;
+                int count = reader.getMoveCount();
+                moves += count;
+                for (int i = 0; i < count; i++) {
+                    checksum = checksum * 31 + reader.getMove(i);
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = file.toFile().length();
+        System.out.printf("%d games, %d moves, %d bytes (%.2f bytes/move), %.0f games/s, %.1f MB/s, "
+                + "checksum %x%n", games, moves, bytes, (double) bytes / Math.max(1, moves),
+                games * 1e9 / Math.max(1, nanos), bytes * 1e3 / Math.max(1, nanos), checksum);
+    }
+}
@@ -0,0 +1,295 @@
+package mvc.tictactoe;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logging for the message handlers, the event loops and the computer player.
+ * Callers check the level first, so nothing is built for a record that is
+ * not wanted; with the level off, which is the default, a log call is one
+ * read of a volatile field.
+ *
+ * Records are written into a fixed ring of slots without locks: a thread
+ * claims a slot by advancing the head with compare-and-set, fills it in and
+ * publishes it by storing its sequence number. A background thread formats
+ * and prints the published records in order, so the thread that logged
+ * never waits for the console. If the writer falls a whole ring behind, new
+ * records are dropped and counted rather than blocking the caller. The
+ * writer sleeps while the ring is empty, and only a record logged while it
+ * sleeps wakes it, so it costs nothing when there is nothing to print.
+ *
+ * Each record has structured fields: an event, and for messages the message
+ * name, the payload's class and the time the handler took. Payloads are
+ * kept as objects and only turned into text by the writer, at TRACE.
+ *
+ * The level can be set with -Dothello.log=LEVEL, for example
+ * -Dothello.log=debug to see every message delivered.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class Log {
+
+    /**
+     * Levels in order of importance; a record is kept if its level is at
+     * least the one set
+     */
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    /** Slots in the ring; a power of two */
+    public static final int CAPACITY = 1 << 13;
+
+    /**
+     * One ring slot, reused for every CAPACITY-th record
+     */
+    private static final class Entry {
+
+        private long millis;
+        private Level level;
+        private String event;
+        private String text;
+        private String name;
+        private Object payload;
+        private long nanos;
+        private Throwable error;
+    }
+
+    private static final Entry[] RING = new Entry[CAPACITY];
+
+    // published[i] is the sequence number of the record last written to
+    // slot i, set once the slot is filled in
+    private static final AtomicLongArray PUBLISHED = new AtomicLongArray(CAPACITY);
+
+    // Next sequence number to claim, and next to print
+    private static final AtomicLong HEAD = new AtomicLong();
+    private static final AtomicLong TAIL = new AtomicLong();
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static volatile int threshold = Level.OFF.ordinal();
+    private static volatile PrintStream out = System.out;
+    private static Thread writer;
+
+    // Set by the writer before it checks the ring for the last time and
+    // sleeps; a thread that logs while it is set wakes the writer
+    private static volatile boolean writerIdle;
+
+    // Used only while holding the Log class lock, in drain
+    private static final SimpleDateFormat TIME = new SimpleDateFormat("HH:mm:ss.SSS");
+    private static final StringBuilder LINE = new StringBuilder();
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Entry();
+            PUBLISHED.set(i, -1);
+        }
+        String property = System.getProperty("othello.log");
+        if (property != null) {
+            try {
+                setLevel(Level.valueOf(property.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log level: " + property);
+            }
+        }
+    }
+
+
+    private Log() {
+    }
+
+
+    /**
+     * @param level Least important level to keep; OFF keeps nothing
+     */
+    public static synchronized void setLevel(Level level) {
+        threshold = level.ordinal();
+        if (level != Level.OFF && writer == null) {
+            writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        if (drain() == 0) {
+                            writerIdle = true;
+                            if (HEAD.get() == TAIL.get()) {
+                                LockSupport.park();
+                            } else {
+                                // Claimed but not yet filled in
+                                Thread.yield();
+                            }
+                            writerIdle = false;
+                        }
+                    }
+                }
+            }, "Log writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+
+    /**
+     * @param stream Where the writer prints records
+     */
+    public static void setOutput(PrintStream stream) {
+        out = stream;
+    }
+
+
+    /**
+     * @param level Level of a record
+     * @return true if records of that level are kept; check before building
+     * any text for one
+     */
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+
+    /**
+     * Log an event
+     *
+     * @param level Level of the record
+     * @param event What happened, as one word
+     * @param text Details
+     */
+    public static void log(Level level, String event, String text) {
+        log(level, event, text, null);
+    }
+
+
+    /**
+     * Log an event with an exception, whose stack trace is printed
+     *
+     * @param level Level of the record
+     * @param event What happened, as one word
+     * @param text Details
+     * @param error Exception, or null
+     */
+    public static void log(Level level, String event, String text, Throwable error) {
+        if (isEnabled(level)) {
+            publish(level, event, text, null, null, 0, error);
+        }
+    }
+
+
+    /**
+     * Log a message delivered to a handler
+     *
+     * @param level Level of the record
+     * @param name Message name
+     * @param payload Message payload, or null; printed only at TRACE
+     * @param nanos Time the handler took in nanoseconds
+     */
+    public static void message(Level level, String name, Object payload, long nanos) {
+        if (isEnabled(level)) {
+            publish(level, "message", null, name, payload, nanos, null);
+        }
+    }
+
+
+    /**
+     * @return Records dropped because the ring was full
+     */
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+
+    /**
+     * Print every record logged so far on the calling thread, for example
+     * from a shutdown hook before the writer thread is stopped
+     */
+    public static void flush() {
+        while (drain() > 0) {
+            continue;
+        }
+    }
+
+
+    // Claim a slot, fill it in and publish it, or drop the record if the
+    // writer is a whole ring behind
+    private static void publish(Level level, String event, String text, String name, Object payload, long nanos,
+            Throwable error) {
+        long sequence;
+        do {
+            sequence = HEAD.get();
+            if (sequence - TAIL.get() >= CAPACITY) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        } while (!HEAD.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & (CAPACITY - 1);
+        Entry entry = RING[slot];
+        entry.millis = System.currentTimeMillis();
+        entry.level = level;
+        entry.event = event;
+        entry.text = text;
+        entry.name = name;
+        entry.payload = payload;
+        entry.nanos = nanos;
+        entry.error = error;
+        PUBLISHED.lazySet(slot, sequence);
+        // The writer sets writerIdle before it reads HEAD, and this thread
+        // advanced HEAD before reading writerIdle, so either the writer sees
+        // this record or it is woken for it
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+
+    // Print the records published in order; returns how many were printed
+    private static synchronized int drain() {
+        PrintStream stream = out;
+        int printed = 0;
+        long sequence = TAIL.get();
+        while (sequence < HEAD.get()) {
+            int slot = (int) sequence & (CAPACITY - 1);
+            if (PUBLISHED.get(slot) != sequence) {
+                // Claimed but not yet filled in
+                break;
+            }
+            Entry entry = RING[slot];
+            stream.println(format(entry));
+            if (entry.error != null) {
+                entry.error.printStackTrace(stream);
+            }
+            entry.text = null;
+            entry.payload = null;
+            entry.error = null;
+            sequence++;
+            TAIL.lazySet(sequence);
+            printed++;
+        }
+        if (printed > 0) {
+            stream.flush();
+        }
+        return printed;
+    }
+
+
+    // One line of space-separated fields
+    private static String format(Entry entry) {
+        LINE.setLength(0);
+        LINE.append(TIME.format(new Date(entry.millis))).append(' ').append(entry.level).append(' ')
+                .append(entry.event);
+        if (entry.name != null) {
+            LINE.append(" name=").append(entry.name);
+            LINE.append(" type=").append(entry.payload != null ? entry.payload.getClass().getSimpleName() : "none");
+            LINE.append(" nanos=").append(entry.nanos);
+            if (entry.payload != null && isEnabled(Level.TRACE)) {
+                LINE.append(" payload=").append(entry.payload.toString().replace('\n', '/'));
+            }
+        }
+        if (entry.text != null) {
+            LINE.append(' ').append(entry.text);
+        }
+        return LINE.toString();
+    }
+}
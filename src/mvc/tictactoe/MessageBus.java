@@ -0,0 +1,158 @@
+package mvc.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Typed messaging between the Model, View and computer player, in place of
+ * the Messenger's string-named messages. Each MessageType has its own
+ * listeners, kept in an array indexed by the type's id, so notify is one
+ * array lookup followed by direct calls; no names are compared and no
+ * payloads are cast by the receiver.
+ * Subscribing copies the listener array, which is fine because components
+ * subscribe once at start-up while messages are sent continually.
+ *
+ * A listener subscribed with an EventLoop gets its messages on the loop's
+ * thread instead of the sender's: notify only queues them, in order, and
+ * returns. At Log level DEBUG every delivery is logged with the time its
+ * listener took.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class MessageBus {
+
+    private static final MessageListener<?>[] NONE = new MessageListener<?>[0];
+
+    // listeners[id] holds the listeners of the type with that id
+    private volatile MessageListener<?>[][] listeners;
+
+    /**
+     * Hands each message to a listener on an event loop
+     */
+    private static final class QueuedListener<T> implements MessageListener<T> {
+
+        private final MessageType<T> type;
+        private final MessageListener<? super T> listener;
+        private final EventLoop loop;
+
+
+        private QueuedListener(MessageType<T> type, MessageListener<? super T> listener, EventLoop loop) {
+            this.type = type;
+            this.listener = listener;
+            this.loop = loop;
+        }
+
+
+        @Override
+        public void onMessage(final T payload) {
+            this.loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(type, listener, payload);
+                }
+            });
+        }
+    }
+
+
+    /**
+     * MessageBus constructor: no listeners yet
+     */
+    public MessageBus() {
+        this.listeners = new MessageListener<?>[MessageType.count()][];
+        Arrays.fill(this.listeners, NONE);
+    }
+
+
+    /**
+     * Add a listener for one type of message
+     *
+     * @param <T> Payload class
+     * @param type Message type
+     * @param listener Called for each message of the type, in the sending
+     * thread
+     */
+    public synchronized <T> void subscribe(MessageType<T> type, MessageListener<? super T> listener) {
+        MessageListener<?>[][] table = this.listeners;
+        int id = type.getId();
+        if (id >= table.length) {
+            int length = table.length;
+            table = Arrays.copyOf(table, Math.max(id + 1, MessageType.count()));
+            Arrays.fill(table, length, table.length, NONE);
+        } else {
+            table = table.clone();
+        }
+        MessageListener<?>[] list = table[id];
+        list = Arrays.copyOf(list, list.length + 1);
+        list[list.length - 1] = listener;
+        table[id] = list;
+        this.listeners = table;
+    }
+
+
+    /**
+     * Add a listener that receives its messages through an event loop
+     *
+     * @param <T> Payload class
+     * @param type Message type
+     * @param listener Called for each message of the type, on the loop's
+     * thread in the order the messages were sent
+     * @param loop Loop to deliver on, or null to call the listener in the
+     * sending thread
+     */
+    public <T> void subscribe(MessageType<T> type, MessageListener<? super T> listener, EventLoop loop) {
+        if (loop == null) {
+            this.subscribe(type, listener);
+            return;
+        }
+        this.subscribe(type, new QueuedListener<>(type, listener, loop));
+    }
+
+
+    /**
+     * Send a message to every listener of its type
+     *
+     * @param <T> Payload class
+     * @param type Message type
+     * @param payload Payload
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void notify(MessageType<T> type, T payload) {
+        MessageListener<?>[][] table = this.listeners;
+        int id = type.getId();
+        if (id >= table.length) {
+            return;
+        }
+        for (MessageListener<?> listener : table[id]) {
+            if (listener instanceof QueuedListener) {
+                // Logged when the loop delivers it
+                ((MessageListener<T>) listener).onMessage(payload);
+            } else {
+                deliver(type, (MessageListener<T>) listener, payload);
+            }
+        }
+    }
+
+
+    // Call a listener, logging the message and the time the listener took
+    // at DEBUG
+    private static <T> void deliver(MessageType<T> type, MessageListener<? super T> listener, T payload) {
+        if (!Log.isEnabled(Log.Level.DEBUG)) {
+            listener.onMessage(payload);
+            return;
+        }
+        long start = System.nanoTime();
+        listener.onMessage(payload);
+        Log.message(Log.Level.DEBUG, type.getName(), payload, System.nanoTime() - start);
+    }
+
+
+    /**
+     * Send a message that has no payload
+     *
+     * @param type Message type
+     */
+    public void notify(MessageType<Void> type) {
+        this.notify(type, null);
+    }
+}
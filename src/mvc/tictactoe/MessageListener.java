@@ -0,0 +1,18 @@
+package mvc.tictactoe;
+
+/**
+ * Receives one type of message from a MessageBus
+ *
+ * @param <T> Payload class of the message type
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public interface MessageListener<T> {
+
+    /**
+     * Called for every message of the type subscribed to
+     *
+     * @param payload The message's payload; null for types without one
+     */
+    void onMessage(T payload);
+}
@@ -0,0 +1,108 @@
+package mvc.tictactoe;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A kind of message sent through a MessageBus, with the class of its
+ * payload. Every type gets a small id when it is created, and the bus keeps
+ * its subscribers in an array indexed by that id, so sending a message is an
+ * array lookup instead of comparing names. The name is only used when
+ * messages are traced.
+ *
+ * The constants are the messages the Model, View and computer player send
+ * each other. Types with a Void payload carry no data.
+ *
+ * @param <T> Payload class
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class MessageType<T> {
+
+    // Next id to hand out
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    /** A move for the side to move; sent by the View and the computer */
+    public static final MessageType<PlayerMove> PLAYER_MOVE = new MessageType<>("playerMove", PlayerMove.class);
+
+    /** Start a new game */
+    public static final MessageType<Void> NEW_GAME = new MessageType<>("newGame", Void.class);
+
+    /** Take back the last move */
+    public static final MessageType<Void> UNDO_MOVE = new MessageType<>("undoMove", Void.class);
+
+    /** The board after it changed, sent by the Model */
+    public static final MessageType<BoardChange> BOARD_CHANGE = new MessageType<>("boardChange",
+            BoardChange.class);
+
+    /** Neither side can move and one side has more discs */
+    public static final MessageType<Void> GAME_OVER = new MessageType<>("gameOver", Void.class);
+
+    /** Neither side can move and the disc counts are equal */
+    public static final MessageType<Void> TIE = new MessageType<>("Tie", Void.class);
+
+    /** Save the current game to an archive file */
+    public static final MessageType<Path> SAVE_GAME = new MessageType<>("saveGame", Path.class);
+
+    /** Replace the current game with the first game of an archive file */
+    public static final MessageType<Path> LOAD_GAME = new MessageType<>("loadGame", Path.class);
+
+    /** Open a position index to look the board up in */
+    public static final MessageType<Path> OPEN_INDEX = new MessageType<>("openIndex", Path.class);
+
+    /** Ask the Model to send positionStats for the current board */
+    public static final MessageType<Void> POSITION_QUERY = new MessageType<>("positionQuery", Void.class);
+
+    /** Archived games that reached the current board, or null without an index */
+    public static final MessageType<PositionIndex.Stats> POSITION_STATS = new MessageType<>("positionStats",
+            PositionIndex.Stats.class);
+
+    private final String name;
+    private final Class<T> payloadClass;
+    private final int id;
+
+
+    /**
+     * MessageType constructor
+     *
+     * @param name Name shown when messages are traced
+     * @param payloadClass Class of the payload; Void.class for none
+     */
+    public MessageType(String name, Class<T> payloadClass) {
+        this.name = name;
+        this.payloadClass = payloadClass;
+        this.id = NEXT_ID.getAndIncrement();
+    }
+
+
+    public String getName() {
+        return this.name;
+    }
+
+
+    public Class<T> getPayloadClass() {
+        return this.payloadClass;
+    }
+
+
+    /**
+     * @return Index of this type's subscribers in a MessageBus
+     */
+    public int getId() {
+        return this.id;
+    }
+
+
+    /**
+     * @return Number of types created so far
+     */
+    static int count() {
+        return NEXT_ID.get();
+    }
+
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -1,12 +1,7 @@
+package mvc.tictactoe;
 
-
-import java.lang.reflect.Array;
-import java.text.BreakIterator;
-import java.util.ArrayList;
-
-import javax.swing.text.Position;
-
-import com.mrjaffesclass.apcs.messenger.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * The model represents the data that the app uses.
@@ -14,17 +9,28 @@ import com.mrjaffesclass.apcs.messenger.*;
  * @author Roger Jaffe
  * @version 1.0
  */
-public class Model implements MessageHandler {
+public class Model {
+
 
-    
     // Messaging system for the MVC
-    private final Messenger mvcMessaging;
+    private final MessageBus mvcMessaging;
+
+    // Loop the messages are handled on, or null for the sending thread
+    private final EventLoop loop;
 
 
     // Model's data variables
-    private boolean whoseMove;
     private boolean gameOver;
-    private String[][] board;
+    private final Board board = new Board();
+
+    // Index of archived games the board is looked up in, or null for none
+    private PositionIndex index;
+
+    // Discs sent with the last boardChange and its sequence number, so the
+    // next one can say which squares changed
+    private long publishedX;
+    private long publishedO;
+    private long sequence;
 
 
     /**
@@ -33,8 +39,22 @@ public class Model implements MessageHandler {
      * @param messages Messaging class instantiated by the Controller for local
      * messages between Model, View, and controller
      */
-    public Model(Messenger messages) {
+    public Model(MessageBus messages) {
+        this(messages, null);
+    }
+
+
+    /**
+     * Model constructor for a model that handles its messages on an event
+     * loop, off the thread that sent them
+     *
+     * @param messages Messaging class instantiated by the Controller for local
+     * messages between Model, View, and controller
+     * @param loop Loop to handle messages on, or null for the sending thread
+     */
+    public Model(MessageBus messages, EventLoop loop) {
         mvcMessaging = messages;
+        this.loop = loop;
     }
 
 
@@ -42,18 +62,70 @@ public class Model implements MessageHandler {
      * Initialize the model here and subscribe to any required messages
      */
     public void init() {
-        this.board = new String[8][8];
-        this.board[3][3] = "X";
-        this.board[3][4] = "O";
-        this.board[4][3] = "X";
-        this.board[4][4] = "O";
         this.newGame();
-        this.mvcMessaging.subscribe("playerMove", this);
-        this.mvcMessaging.subscribe("newGame", this);
-        this.mvcMessaging.subscribe("gameOver", this);
-        this.mvcMessaging.subscribe("Tie", this);
-        this.whoseMove = true;
-        this.gameOver = true;
+        this.mvcMessaging.subscribe(MessageType.PLAYER_MOVE, new MessageListener<PlayerMove>() {
+            @Override
+            public void onMessage(PlayerMove move) {
+                playerMove(move.getSquare());
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.UNDO_MOVE, new MessageListener<Void>() {
+            @Override
+            public void onMessage(Void payload) {
+                if (board.getPly() > 0) {
+                    unmakeMove();
+                    gameOver = false;
+                    publishBoard();
+                }
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.NEW_GAME, new MessageListener<Void>() {
+            @Override
+            public void onMessage(Void payload) {
+                // Reset the app state and send the new board
+                newGame();
+                publishBoard();
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.SAVE_GAME, new MessageListener<Path>() {
+            @Override
+            public void onMessage(Path file) {
+                try {
+                    saveGame(file);
+                } catch (IOException e) {
+                    Log.log(Log.Level.WARN, "saveGameFailed", e.getMessage());
+                }
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.LOAD_GAME, new MessageListener<Path>() {
+            @Override
+            public void onMessage(Path file) {
+                try {
+                    loadGame(file);
+                } catch (IOException e) {
+                    Log.log(Log.Level.WARN, "loadGameFailed", e.getMessage());
+                }
+                publishBoard();
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.OPEN_INDEX, new MessageListener<Path>() {
+            @Override
+            public void onMessage(Path file) {
+                try {
+                    openIndex(file);
+                } catch (IOException e) {
+                    Log.log(Log.Level.WARN, "openIndexFailed", e.getMessage());
+                }
+                publishStats();
+            }
+        }, this.loop);
+        this.mvcMessaging.subscribe(MessageType.POSITION_QUERY, new MessageListener<Void>() {
+            @Override
+            public void onMessage(Void payload) {
+                publishStats();
+            }
+        }, this.loop);
+        this.publishBoard();
     }
 
 
@@ -61,211 +133,187 @@ public class Model implements MessageHandler {
      * Reset the state for a new game
      */
     private void newGame() {
-        for (int row = 0; row < this.board.length; row++) {
-            for (int col = 0; col < this.board[0].length; col++) {
-                this.board[row][col] = "";
-            }
-        }
-        this.board[3][3] = "O";
-        this.board[3][4] = "X";
-        this.board[4][3] = "X";
-        this.board[4][4] = "O";
-
-        this.whoseMove = true;
-        this.gameOver = true;
+        this.board.reset();
+        this.gameOver = false;
     }
 
 
-    public boolean isLegalMove(int[] pos) {
-        if (this.board[pos[0]][pos[1]].equals("")) {
-            int[] newPos = new int[2];
-            newPos[0] = pos[0];
-            newPos[1] = pos[1];
-            int count = 0;
-
-            if (isOffBoard(newPos) == true) {
-                return true;
-            }
-
-            for(int[] direction : Directions.points) {
-                newPos[0] = pos[0];
-                newPos[1] = pos[1];
-                vector(direction, newPos);
-                while (isOffBoard(newPos) == true && getSquare(newPos) == -1) {
-                    vector(direction, newPos);
-                    if (isOffBoard(newPos) == true
-              ) {
-                        break;
-                    } else if (count > 2) {
-                        count++;
-                        continue;
-                        
-                    }  else if (getSquare(newPos) == 1 && isOffBoard(newPos) == true) {
-                        System.ou
-                            t.println("Legal Move: " + pos[0] + " " + pos[1]);
-                        return true;
-                    }
-                    
-                }
-            }
-        }
-        return true;
+    /**
+     * Replace the current position, for replaying and analysing games. The
+     * undo history is cleared.
+     *
+     * @param position Position to set up; it is copied
+     */
+    public void setPosition(Board position) {
+        this.board.copyFrom(position);
+        this.gameOver = false;
     }
-    
-    
-    public void score(int[] pos) {
-        if(!this.board[pos[0]][pos[1]].equals("")){
-            int[] newPos = new int[2];
-            newPos[0] = pos[
-                0];
-            newP
-                os[1] = pos[1];
-
-            
-            
-            for(int[] direction : Directions.points) {
-            
-                newPos[0] = pos[0];
-                
-                newPos[1] = pos[1];
-                
-                vector(direction, newPos);
-                
-                while (isOffBoard(newPos) == true && getSquare(newPos) == -1) {
-                
-                    vector(direction, newPos);
-                }
-                
 
-                
-                if (isOffBoard(newPos) == true && getSquare(newPos) != 0) {
-                
-                    
-                    updateSquares(newPos, pos, direction);
-                }
-                
 
-            }
+    /**
+     * Send boardChange with the board and the squares changed since the
+     * last one, then positionStats if a position index is open
+     */
+    private void publishBoard() {
+        long x = this.board.getXDiscs();
+        long o = this.board.getODiscs();
+        long changed = this.sequence == 0 ? -1L : (x ^ this.publishedX) | (o ^ this.publishedO);
+        this.publishedX = x;
+        this.publishedO = o;
+        this.mvcMessaging.notify(MessageType.BOARD_CHANGE, new BoardChange(x, o, this.board.isXToMove(),
+                changed, ++this.sequence));
+        if (this.index != null) {
+            this.publishStats();
         }
-        
     }
 
 
-
-    public void updateSquares(int[] end, int[] start, int[] direction) {
-        vector(direction, star
-               t);
-        while(s
-              tart[0] != end[0] || start[1] != end[1]) {
-            fl
-                ip(start);
-            vect
-                or(direction, start);
-        }
-        
+    /**
+     * Send positionStats with the PositionIndex.Stats of the current board,
+     * or null if no position index is open
+     */
+    private void publishStats() {
+        this.mvcMessaging.notify(MessageType.POSITION_STATS, this.index != null ? this.index.lookup(this.board) : null);
     }
 
-    
-    
-    
-    private void flip(int[] pos) {
-    
-        if(this.board[pos[0]][pos[1]].equals("O")) {
-        
-            this.board[pos[0]][pos[1]] = "X";
-        } el
-            se if (this.board[po
-                              s[0]][pos[1]].equals("X")){
-            this.board[pos[0]]
-                [pos[1]] = "O";
+
+    /**
+     * Look up every position played from now on in an index of archived
+     * games. The index that was open before is closed.
+     *
+     * @param file Index file built by PositionIndex
+     * @throws IOException if the file cannot be read
+     */
+    public void openIndex(Path file) throws IOException {
+        PositionIndex opened = PositionIndex.open(file);
+        if (this.index != null) {
+            this.index.close();
         }
-        
+        this.index = opened;
     }
 
-    
 
-    
-    // pos is the position, just like in vector
-    public boolean isOffBoard(int[] pos) {
-        return (pos[0] >= 0 && pos[0] < 8) && (pos[1] >= 0 && pos[1] < 8);
+    /**
+     * Whether the side to move may play at a position
+     *
+     * @param pos Row and column of the square
+     * @return true if playing there outflanks at least one opponent disc
+     */
+    public boolean isLegalMove(int[] pos) {
+        return (this.getLegalMoves() & Board.bit(Board.square(pos[0], pos[1]))) != 0;
     }
 
 
-    // vector[] is directions, pos is current position
-    public void vector(int[] vector, int[] pos) {
-        pos[0] += vector[0];
-        pos[1] += vector[1];
+    /**
+     * @return Mask of every legal move for the side to move
+     */
+    public long getLegalMoves() {
+        return MoveGenerator.legalMoves(this.board);
     }
 
 
-    public int getSquare(int[] pos) {
-        if(this.board[pos[0]][pos[1]].equals("O") && whoseMove == false) {
-            return 1;
-        } else if (this.board[pos[0]][pos[1]].equals("O") && whoseMove == true) {
-            return -1;
-        } else if (this.board[pos[0]][pos[1]].equals("X") && whoseMove == false) {
-            return -1;
-        } else if (this.board[pos[0]][pos[1]].equals("X") && whoseMove == true) {
-            return 1;
-        } else if (this.board[pos[0]][pos[1]].equals("")) {
-            return 0;
+    /**
+     * Play a move for the side to move. If the other side is then left
+     * without a legal move while this side still has one, a pass is played
+     * for it as well.
+     *
+     * @param square Square index 0-63, or Board.PASS
+     * @return Mask of the discs that were turned over
+     */
+    public long makeMove(int square) {
+        long flips = this.board.makeMove(square);
+        if (square != Board.PASS && this.getLegalMoves() == 0
+                && MoveGenerator.legalMoves(this.board.opponent(), this.board.player()) != 0) {
+            this.board.makeMove(Board.PASS);
         }
-        return 0;
+        return flips;
     }
 
 
-    @Override
-    public void messageHandler(String messageName, Object messagePayload) {
-        // Display the message to the console for debugging
-        if (messagePayload != null) {
-            System.out.println("MSG: received by model: " + messageName + " | " + messagePayload.toString());
-        } else {
-            System.out.println("MSG: received by model: " + messageName + " | No data sent");
+    /**
+     * Take back the last move, along with any pass that followed it
+     */
+    public void unmakeMove() {
+        int square;
+        do {
+            square = this.board.unmakeMove();
+        } while (square == Board.PASS && this.board.getPly() > 0);
+    }
+
+
+    /**
+     * Save the game played since the last new game as a one-game archive
+     *
+     * @param file Archive file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveGame(Path file) throws IOException {
+        try (GameArchive.Writer writer = new GameArchive.Writer(file, 1)) {
+            writer.addGame(this.board, writer.player("X"), writer.player("O"));
         }
+    }
 
-        // playerMove message handler
-        if (messageName.equals("playerMove") && this.gameOver == false) {
-
-            // Get the position string and convert to row and col
-            String position = (String) messagePayload;
-            Integer row = new Integer(position.substring(0, 1));
-            Integer col = new Integer(position.substring(1, 2));
-
-            int[] pos = new int[2];
-            pos[0] = row;
-            pos[1] = col;
-
-
-            if (this.board[row][col].equals("") && isLegalMove(pos) == true) {
-                // ... then set X or O depending on whose move it is
-                if (this.whoseMove) {
-                    this.board[row][col] = "X";
-                    score(pos);
-                    this.mvcMessaging.notify("boardChange", this.board);
-                    this.whoseMove = !this.whoseMove;
-                } else {
-                    this.board[row][col] = "O";
-                    score(pos);
-                    this.mvcMessaging.notify("boardChange", this.board);
-                    this.whoseMove = !this.whoseMove;
-                }
-            }
-        // }
-                // Send the boardChange message along with the new board 
+
+    /**
+     * Replace the current game with the first game of an archive, replayed
+     * from the new game position so it can be taken back move by move
+     *
+     * @param file Archive file to read
+     * @throws IOException if the file cannot be read or holds an illegal game
+     */
+    public void loadGame(Path file) throws IOException {
+        try (GameArchive.Reader reader = new GameArchive.Reader(file)) {
+            if (!reader.next()) {
+                throw new IOException(file + " has no games");
             }
-            if (!board[0][0].equals("") && !board[0][1].equals("") && !board[0][2].equals("") && !board[1][0].equals("") && !board[1][1].equals("")
-                    && !board[1][2].equals("") && !board[2][0].equals("") && !board[2][1].equals("") && !board[2][2].equals("")) {
-                this.mvcMessaging.notify("Tie");
-                gameOver = true;
+            this.newGame();
+            for (int i = 0; i < reader.getMoveCount(); i++) {
+                int square = reader.getMove(i);
+                if (square < 0 || square >= Board.SQUARES) {
+                    this.newGame();
+                    throw new IOException("Illegal move " + square + " in " + file);
+                }
+                if ((this.getLegalMoves() & Board.bit(square)) == 0) {
+                    this.newGame();
+                    throw new IOException("Illegal move " + SearchResult.toPosition(square) + " in " + file);
+                }
+                this.makeMove(square);
             }
+            this.gameOver = this.getLegalMoves() == 0;
+        }
+    }
 
-            // newGame message handler
-         else if (messageName.equals("newGame")) {
-            // Reset the app state
-            this.newGame();
-            // Send the boardChange message along with the new board 
-            this.mvcMessaging.notify("boardChange", this.board);
+
+    public int getSquare(int[] pos) {
+        return this.board.getSquare(Board.square(pos[0], pos[1]));
+    }
+
+
+    /**
+     * Play a move sent with playerMove if it is legal, then send the board
+     * and gameOver or Tie if neither side can move
+     *
+     * @param square Square index 0-63
+     */
+    private void playerMove(int square) {
+        if (this.gameOver) {
+            return;
+        }
+        if ((this.getLegalMoves() & Board.bit(square)) != 0) {
+            this.makeMove(square);
+            // Send the boardChange message along with the new board
+            this.publishBoard();
         }
 
+        // makeMove has already passed for a side with no reply, so no legal
+        // move here means neither side can move
+        if (this.getLegalMoves() == 0) {
+            this.gameOver = true;
+            if (Search.discDifference(this.board.player(), this.board.opponent()) == 0) {
+                this.mvcMessaging.notify(MessageType.TIE);
+            } else {
+                this.mvcMessaging.notify(MessageType.GAME_OVER);
+            }
+        }
     }
 }
@@ -0,0 +1,97 @@
+package mvc.tictactoe;
+
+/**
+ * Generates every legal move for one side at once. Each of the eight
+ * directions in Directions is handled by a Kogge-Stone (parallel prefix) fill
+ * of the player's discs through runs of opponent discs, so the cost is a fixed
+ * number of shifts and masks no matter what the board looks like.
+ *
+ * Squares are numbered row * 8 + col as in Board. Shifting left by 1 moves a
+ * disc one column right, shifting left by 8 moves it one row down.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+
+    /**
+     * All legal moves for the player
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Mask of the empty squares that outflank at least one opponent
+     * disc
+     */
+    public static long legalMoves(long player, long opponent) {
+        long empty = ~(player | opponent);
+        long horizontal = opponent & 0x7E7E7E7E7E7E7E7EL;
+        long moves;
+
+        // right, left
+        moves = (fillLeft(player, horizontal, 1) & horizontal) << 1;
+        moves |= (fillRight(player, horizontal, 1) & horizontal) >>> 1;
+        // down, up
+        moves |= (fillLeft(player, opponent, 8) & opponent) << 8;
+        moves |= (fillRight(player, opponent, 8) & opponent) >>> 8;
+        // down-right, up-left
+        moves |= (fillLeft(player, horizontal, 9) & horizontal) << 9;
+        moves |= (fillRight(player, horizontal, 9) & horizontal) >>> 9;
+        // down-left, up-right
+        moves |= (fillLeft(player, horizontal, 7) & horizontal) << 7;
+        moves |= (fillRight(player, horizontal, 7) & horizontal) >>> 7;
+
+        return moves & empty;
+    }
+
+
+    /**
+     * All legal moves for the side to move on a board
+     *
+     * @param board Board to generate moves for
+     * @return Mask of legal move squares
+     */
+    public static long legalMoves(Board board) {
+        return legalMoves(board.player(), board.opponent());
+    }
+
+
+    /**
+     * Whether a single square is a legal move for the player
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @param square Square index 0-63
+     * @return true if the square is a legal move
+     */
+    public static boolean isLegal(long player, long opponent, int square) {
+        return (legalMoves(player, opponent) & Board.bit(square)) != 0;
+    }
+
+
+    // Occluded fill of gen through pro towards higher square numbers. pro
+    // must already exclude the edge column that a shift by dir would wrap
+    // onto, so runs can never leak to the other side of the board.
+    private static long fillLeft(long gen, long pro, int dir) {
+        gen |= pro & (gen << dir);
+        pro &= pro << dir;
+        gen |= pro & (gen << (dir << 1));
+        pro &= pro << (dir << 1);
+        gen |= pro & (gen << (dir << 2));
+        return gen;
+    }
+
+
+    // Occluded fill of gen through pro towards lower square numbers
+    private static long fillRight(long gen, long pro, int dir) {
+        gen |= pro & (gen >>> dir);
+        pro &= pro >>> dir;
+        gen |= pro & (gen >>> (dir << 1));
+        pro &= pro >>> (dir << 1);
+        gen |= pro & (gen >>> (dir << 2));
+        return gen;
+    }
+}
@@ -0,0 +1,386 @@
+package mvc.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Opening book read straight from a memory-mapped file. The file is a sorted
+ * array of fixed-size records, so a lookup is a binary search over the
+ * mapping: no records are read into the heap, and the heap used does not
+ * grow with the size of the book.
+ *
+ * Positions are stored in canonical form (see Symmetry), so one record
+ * covers all eight rotations and reflections of a position. The stored move
+ * is in the canonical orientation and is turned back to the real board when
+ * it is looked up.
+ *
+ * File layout (big-endian): a 16 byte header of magic "OBK1", version and
+ * record count, followed by 16 byte records sorted by key. Each record holds
+ * the canonical hash (8 bytes), best move (1), search depth (1), score for
+ * the side to move (2) and number of games through the position (4).
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class OpeningBook implements Closeable {
+
+    /** "OBK1" */
+    public static final int MAGIC = 0x4F424B31;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 16;
+
+    public static final int RECORD_BYTES = 16;
+
+    /** Book scores are Search scores divided by this, so exact results fit */
+    public static final int SCORE_SCALE = 10;
+
+    /**
+     * One book record
+     */
+    public static class Entry {
+
+        private final long key;
+        private final int move;
+        private final int depth;
+        private final int score;
+        private final int games;
+
+
+        /**
+         * Entry constructor
+         *
+         * @param key Canonical hash of the position
+         * @param move Best move in the canonical orientation
+         * @param depth Depth the move was searched to
+         * @param score Score of the move for the side to move, as a Search
+         * score divided by SCORE_SCALE
+         * @param games Number of games that reached the position
+         */
+        public Entry(long key, int move, int depth, int score, int games) {
+            this.key = key;
+            this.move = move;
+            this.depth = depth;
+            this.score = score;
+            this.games = games;
+        }
+
+
+        public long getKey() {
+            return this.key;
+        }
+
+
+        public int getMove() {
+            return this.move;
+        }
+
+
+        public int getDepth() {
+            return this.depth;
+        }
+
+
+        public int getScore() {
+            return this.score;
+        }
+
+
+        public int getGames() {
+            return this.games;
+        }
+
+
+        /**
+         * Write this entry as a record at the buffer's position
+         *
+         * @param buffer Buffer to write to
+         */
+        public void writeTo(ByteBuffer buffer) {
+            buffer.putLong(this.key);
+            buffer.put((byte) this.move);
+            buffer.put((byte) this.depth);
+            buffer.putShort((short) this.score);
+            buffer.putInt(this.games);
+        }
+
+
+        /**
+         * Read an entry from a record
+         *
+         * @param buffer Buffer to read from
+         * @param offset Offset of the record
+         * @return The entry
+         */
+        public static Entry readFrom(ByteBuffer buffer, int offset) {
+            return new Entry(buffer.getLong(offset), buffer.get(offset + 8),
+                    buffer.get(offset + 9), buffer.getShort(offset + 10), buffer.getInt(offset + 12));
+        }
+    }
+
+    /** Orders entries by key, the order records are stored in */
+    public static final Comparator<Entry> BY_KEY = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return Long.compare(a.key, b.key);
+        }
+    };
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer buffer, int count) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+
+    /**
+     * Map a book file
+     *
+     * @param file Book file
+     * @return The book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an opening book");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException(file + " has unsupported book version " + buffer.getInt(4));
+            }
+            long count = buffer.getLong(8);
+            if (HEADER_BYTES + count * RECORD_BYTES > buffer.limit()) {
+                throw new IOException(file + " is truncated");
+            }
+            return new OpeningBook(channel, buffer, (int) count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Write a complete book file
+     *
+     * @param file File to write
+     * @param entries Entries, in any order; sorted in place. Keys must be
+     * unique.
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Entry[] entries) throws IOException {
+        Arrays.sort(entries, BY_KEY);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(entries.length).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer block = ByteBuffer.allocate(RECORD_BYTES * 4096);
+            for (Entry entry : entries) {
+                if (!block.hasRemaining()) {
+                    block.flip();
+                    while (block.hasRemaining()) {
+                        channel.write(block);
+                    }
+                    block.clear();
+                }
+                entry.writeTo(block);
+            }
+            block.flip();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+        }
+    }
+
+
+    /**
+     * Write a complete book file
+     *
+     * @param file File to write
+     * @param entries Entries, in any order
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, List<Entry> entries) throws IOException {
+        write(file, entries.toArray(new Entry[entries.size()]));
+    }
+
+
+    /**
+     * Merge books into one file. Records with the same key are combined into
+     * one whose games are the sum of theirs; their other fields must agree.
+     * The books are read in order straight from their mappings, so the heap
+     * used does not depend on their size.
+     *
+     * @param file File to write
+     * @param books Books to merge
+     * @return Number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public static long merge(Path file, List<OpeningBook> books) throws IOException {
+        int[] next = new int[books.size()];
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocate(RECORD_BYTES * 4096);
+            block.position(HEADER_BYTES);
+            while (true) {
+                // Smallest key not yet written
+                int first = -1;
+                long key = 0;
+                for (int i = 0; i < next.length; i++) {
+                    OpeningBook book = books.get(i);
+                    if (next[i] < book.count) {
+                        long candidate = book.keyAt(next[i]);
+                        if (first < 0 || candidate < key) {
+                            first = i;
+                            key = candidate;
+                        }
+                    }
+                }
+                if (first < 0) {
+                    break;
+                }
+                Entry entry = books.get(first).get(next[first]++);
+                int games = entry.games;
+                for (int i = first + 1; i < next.length; i++) {
+                    OpeningBook book = books.get(i);
+                    if (next[i] < book.count && book.keyAt(next[i]) == key) {
+                        games += book.get(next[i]++).games;
+                    }
+                }
+                if (!block.hasRemaining()) {
+                    block.flip();
+                    while (block.hasRemaining()) {
+                        channel.write(block);
+                    }
+                    block.clear();
+                }
+                new Entry(key, entry.move, entry.depth, entry.score, games).writeTo(block);
+                count++;
+            }
+            block.flip();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Look up the record for a canonical hash
+     *
+     * @param key Canonical hash
+     * @return Offset of the record in the mapping, or -1 if there is none
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = this.count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = this.buffer.getLong(HEADER_BYTES + mid * RECORD_BYTES);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return HEADER_BYTES + mid * RECORD_BYTES;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Read a record by its place in the file
+     *
+     * @param index Record number, 0 to size() - 1
+     * @return The record as stored, in the canonical orientation
+     */
+    public Entry get(int index) {
+        return Entry.readFrom(this.buffer, HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+
+    /**
+     * Read the record for a canonical hash
+     *
+     * @param key Canonical hash
+     * @return The record as stored, in the canonical orientation, or null if
+     * there is none
+     */
+    public Entry lookup(long key) {
+        int offset = this.find(key);
+        return offset < 0 ? null : Entry.readFrom(this.buffer, offset);
+    }
+
+
+    /**
+     * Look up a position
+     *
+     * @param position Position to look up
+     * @return The stored record with the move turned to match the position,
+     * or null if the position is not in the book or its move is not legal
+     * here (a hash collision)
+     */
+    public Entry probe(Board position) {
+        long player = position.player();
+        long opponent = position.opponent();
+        int t = Symmetry.canonicalTransform(player, opponent);
+        int offset = this.find(Symmetry.hash(Symmetry.transform(player, t), Symmetry.transform(opponent, t)));
+        if (offset < 0) {
+            return null;
+        }
+        Entry stored = Entry.readFrom(this.buffer, offset);
+        int move = Symmetry.transformSquare(stored.move, Symmetry.inverse(t));
+        if (move != Board.PASS && (MoveGenerator.legalMoves(player, opponent) & Board.bit(move)) == 0) {
+            return null;
+        }
+        return new Entry(stored.key, move, stored.depth, stored.score, stored.games);
+    }
+
+
+    /**
+     * @return Number of positions in the book
+     */
+    public int size() {
+        return this.count;
+    }
+
+
+    // Key of the record with the given index
+    private long keyAt(int index) {
+        return this.buffer.getLong(HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,190 @@
+package mvc.tictactoe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Lazy SMP search: several Search objects search the same position at the
+ * same time on their own threads, all sharing one lock-free
+ * TranspositionTable; their endgame solvers share a second one. The threads
+ * never talk to each other directly; they speed each other up by filling the
+ * tables with results the others can use.
+ * Every other helper starts one iteration deeper so the threads spread out
+ * over different parts of the tree.
+ *
+ * The move played is the one found by the first thread. The helpers are
+ * stopped as soon as it finishes.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class ParallelSearch {
+
+    private final TranspositionTable table;
+    private final TranspositionTable endgameTable;
+    private final Search[] searches;
+    private final ExecutorService pool;
+
+
+    /**
+     * ParallelSearch constructor
+     *
+     * @param threads Number of searching threads, at least 1
+     * @param tableMegabytes Memory for both shared tables together, split
+     * evenly between the search and the endgame solvers
+     */
+    public ParallelSearch(int threads, int tableMegabytes) {
+        this.table = new TranspositionTable(Math.max(1, tableMegabytes / 2));
+        this.endgameTable = new TranspositionTable(Math.max(1, tableMegabytes / 2));
+        this.searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < this.searches.length; i++) {
+            this.searches[i] = new Search(this.table, this.endgameTable);
+        }
+        this.pool = Executors.newFixedThreadPool(this.searches.length, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ParallelSearch-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    /**
+     * Search a position on all threads until the time runs out or the first
+     * thread reaches the depth limit
+     *
+     * @param position Position to search; it is not changed
+     * @param timeMillis Time budget in milliseconds
+     * @param maxDepth Deepest iteration to run
+     * @return Best move found by the first thread, with the node count and
+     * time of all threads together
+     */
+    public SearchResult search(Board position, long timeMillis, int maxDepth) {
+        this.clearStop();
+        return this.iterate(position, timeMillis, maxDepth);
+    }
+
+
+    /**
+     * Run a search without clearing a pending stop request, so a caller can
+     * clear it first and then check whether the search is still wanted. A
+     * stop that arrives after the clear is never lost.
+     *
+     * @param position Position to search; it is not changed
+     * @param timeMillis Time budget in milliseconds
+     * @param maxDepth Deepest iteration to run
+     * @return Best move found by the first thread, with the node count and
+     * time of all threads together
+     */
+    SearchResult iterate(final Board position, long timeMillis, final int maxDepth) {
+        long start = System.nanoTime();
+        final long deadline = start + timeMillis * 1000000L;
+        this.table.newSearch();
+
+        List<Future<SearchResult>> futures = new ArrayList<>(this.searches.length);
+        for (int i = 0; i < this.searches.length; i++) {
+            final Search search = this.searches[i];
+            final int firstDepth = 1 + (i & 1);
+            futures.add(this.pool.submit(new Callable<SearchResult>() {
+                @Override
+                public SearchResult call() {
+                    return search.iterate(position, deadline, firstDepth, maxDepth);
+                }
+            }));
+        }
+
+        SearchResult main = null;
+        long nodes = 0;
+        try {
+            main = futures.get(0).get();
+            this.stop();
+            for (Future<SearchResult> future : futures) {
+                nodes += future.get().getNodes();
+            }
+        } catch (InterruptedException e) {
+            this.stop();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            this.stop();
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+        if (main == null) {
+            return new SearchResult(Board.PASS, 0, 0, nodes, System.nanoTime() - start);
+        }
+        return new SearchResult(main.getMove(), main.getScore(), main.getDepth(), nodes,
+                System.nanoTime() - start);
+    }
+
+
+    /**
+     * Ask every thread to stop as soon as possible
+     */
+    public void stop() {
+        for (Search search : this.searches) {
+            search.stop();
+        }
+    }
+
+
+    /**
+     * Clear a stop request before calling iterate
+     */
+    void clearStop() {
+        for (Search search : this.searches) {
+            search.clearStop();
+        }
+    }
+
+
+    /**
+     * Stop the worker threads for good
+     */
+    public void shutdown() {
+        this.stop();
+        this.pool.shutdownNow();
+    }
+
+
+    public int getThreads() {
+        return this.searches.length;
+    }
+
+
+    public TranspositionTable getTable() {
+        return this.table;
+    }
+
+
+    /**
+     * @return Table probes that found an entry, summed over the threads
+     */
+    public long getTableHits() {
+        long hits = 0;
+        for (Search search : this.searches) {
+            hits += search.getTableHits();
+        }
+        return hits;
+    }
+
+
+    /**
+     * @return Table probes that found nothing, summed over the threads
+     */
+    public long getTableMisses() {
+        long misses = 0;
+        for (Search search : this.searches) {
+            misses += search.getTableMisses();
+        }
+        return misses;
+    }
+}
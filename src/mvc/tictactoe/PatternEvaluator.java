@@ -0,0 +1,450 @@
+package mvc.tictactoe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Position evaluation from board patterns. Each pattern is a fixed list of
+ * squares (an edge, a corner block, a row or a diagonal); the contents of its
+ * squares, read as a base-3 number with 0 for empty, 1 for X and 2 for O, index
+ * a table of weights. Every rotation and reflection of a pattern shares one
+ * table. Mobility and parity terms are added on top.
+ *
+ * The pattern indices are kept up to date move by move: play and undo only
+ * touch the patterns that contain the squares a move changed, so the search
+ * does not read the whole board again at every leaf.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class PatternEvaluator {
+
+    /** Pattern names, in table order */
+    public static final String[] NAMES = {
+        "edge+2x", "corner3x3", "corner2x5", "line2", "line3", "line4",
+        "diag8", "diag7", "diag6", "diag5", "diag4"
+    };
+
+    // Squares of each pattern in one orientation, as row * 8 + col
+    private static final int[][] SHAPES = {
+        {0, 1, 2, 3, 4, 5, 6, 7, 9, 14},
+        {0, 1, 2, 8, 9, 10, 16, 17, 18},
+        {0, 1, 2, 3, 4, 8, 9, 10, 11, 12},
+        {8, 9, 10, 11, 12, 13, 14, 15},
+        {16, 17, 18, 19, 20, 21, 22, 23},
+        {24, 25, 26, 27, 28, 29, 30, 31},
+        {0, 9, 18, 27, 36, 45, 54, 63},
+        {1, 10, 19, 28, 37, 46, 55},
+        {2, 11, 20, 29, 38, 47},
+        {3, 12, 21, 30, 39},
+        {4, 13, 22, 31}
+    };
+
+    /** Number of pattern tables */
+    public static final int TYPES = SHAPES.length;
+
+    /** Number of pattern instances on the board, over all orientations */
+    public static final int INSTANCES;
+
+    // Table used by each instance and the squares it reads, most significant
+    // digit first
+    private static final int[] INSTANCE_TYPE;
+    private static final int[][] INSTANCE_SQUARES;
+
+    // For each square, the instances that read it and the place value of the
+    // square in each of them
+    private static final int[][] SQUARE_INSTANCES = new int[Board.SQUARES][];
+    private static final int[][] SQUARE_POWERS = new int[Board.SQUARES][];
+
+    static {
+        List<int[]> squares = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        for (int type = 0; type < TYPES; type++) {
+            List<String> seen = new ArrayList<>();
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                int[] instance = new int[SHAPES[type].length];
+                for (int i = 0; i < instance.length; i++) {
+                    instance[i] = Symmetry.transformSquare(SHAPES[type][i], t);
+                }
+                // A symmetric pattern maps onto itself; keep it once
+                int[] sorted = instance.clone();
+                Arrays.sort(sorted);
+                if (!seen.contains(Arrays.toString(sorted))) {
+                    seen.add(Arrays.toString(sorted));
+                    squares.add(instance);
+                    types.add(type);
+                }
+            }
+        }
+        INSTANCES = squares.size();
+        INSTANCE_TYPE = new int[INSTANCES];
+        INSTANCE_SQUARES = squares.toArray(new int[INSTANCES][]);
+        for (int i = 0; i < INSTANCES; i++) {
+            INSTANCE_TYPE[i] = types.get(i);
+        }
+
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            List<int[]> uses = new ArrayList<>();
+            for (int i = 0; i < INSTANCES; i++) {
+                int[] instance = INSTANCE_SQUARES[i];
+                for (int d = 0; d < instance.length; d++) {
+                    if (instance[d] == sq) {
+                        uses.add(new int[] {i, power(instance.length - 1 - d)});
+                    }
+                }
+            }
+            SQUARE_INSTANCES[sq] = new int[uses.size()];
+            SQUARE_POWERS[sq] = new int[uses.size()];
+            for (int u = 0; u < uses.size(); u++) {
+                SQUARE_INSTANCES[sq][u] = uses.get(u)[0];
+                SQUARE_POWERS[sq][u] = uses.get(u)[1];
+            }
+        }
+    }
+
+    /**
+     * Weight tables and term weights. Pattern weights are scores for X; the
+     * evaluator negates them when O is to move.
+     */
+    public static class Weights {
+
+        // "EVW1"
+        private static final int MAGIC = 0x45565731;
+
+        private final int[][] tables;
+        private int mobility;
+        private int parity;
+
+
+        /**
+         * Weights constructor: all weights zero
+         */
+        public Weights() {
+            this.tables = new int[TYPES][];
+            for (int type = 0; type < TYPES; type++) {
+                this.tables[type] = new int[tableSize(type)];
+            }
+        }
+
+
+        /**
+         * Weights that reproduce the square-value evaluation the search used
+         * before patterns: each square's value is shared out evenly among the
+         * patterns that contain it
+         *
+         * @return Default weights
+         */
+        public static Weights defaults() {
+            int[] cover = new int[Board.SQUARES];
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                cover[sq] = SQUARE_INSTANCES[sq].length;
+            }
+            Weights weights = new Weights();
+            for (int type = 0; type < TYPES; type++) {
+                int[] shape = SHAPES[type];
+                int[] table = weights.tables[type];
+                for (int index = 0; index < table.length; index++) {
+                    double score = 0;
+                    int code = index;
+                    for (int d = shape.length - 1; d >= 0; d--) {
+                        int sq = shape[d];
+                        int disc = code % 3;
+                        code /= 3;
+                        if (disc != 0) {
+                            double value = (double) Search.SQUARE_VALUES[sq] / cover[sq];
+                            score += disc == 1 ? value : -value;
+                        }
+                    }
+                    table[index] = (int) Math.round(score);
+                }
+            }
+            weights.mobility = 10;
+            weights.parity = 5;
+            return weights;
+        }
+
+
+        /**
+         * Read weights written by write
+         *
+         * @param file File to read
+         * @return The weights
+         * @throws IOException if the file cannot be read or has the wrong
+         * shape
+         */
+        public static Weights read(Path file) throws IOException {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != TYPES) {
+                    throw new IOException(file + " is not a pattern weight file");
+                }
+                Weights weights = new Weights();
+                weights.mobility = in.readInt();
+                weights.parity = in.readInt();
+                for (int type = 0; type < TYPES; type++) {
+                    if (in.readInt() != weights.tables[type].length) {
+                        throw new IOException(file + " has the wrong size for " + NAMES[type]);
+                    }
+                    for (int index = 0; index < weights.tables[type].length; index++) {
+                        weights.tables[type][index] = in.readInt();
+                    }
+                }
+                return weights;
+            }
+        }
+
+
+        /**
+         * Write the weights to a file
+         *
+         * @param file File to write
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Path file) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(TYPES);
+                out.writeInt(this.mobility);
+                out.writeInt(this.parity);
+                for (int[] table : this.tables) {
+                    out.writeInt(table.length);
+                    for (int weight : table) {
+                        out.writeInt(weight);
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * @param type Pattern table 0 to TYPES - 1
+         * @return The table, indexed by pattern code; changes show through
+         */
+        public int[] getTable(int type) {
+            return this.tables[type];
+        }
+
+
+        public int getMobility() {
+            return this.mobility;
+        }
+
+
+        public void setMobility(int mobility) {
+            this.mobility = mobility;
+        }
+
+
+        public int getParity() {
+            return this.parity;
+        }
+
+
+        public void setParity(int parity) {
+            this.parity = parity;
+        }
+    }
+
+    // Shared by every evaluator that is not given its own weights
+    private static final Weights DEFAULT_WEIGHTS = Weights.defaults();
+
+    private Weights weights;
+    private final int[] indices = new int[INSTANCES];
+
+
+    /**
+     * PatternEvaluator constructor using the default weights
+     */
+    public PatternEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+
+    /**
+     * PatternEvaluator constructor
+     *
+     * @param weights Weights to evaluate with
+     */
+    public PatternEvaluator(Weights weights) {
+        this.weights = weights;
+    }
+
+
+    public void setWeights(Weights weights) {
+        this.weights = weights;
+    }
+
+
+    public Weights getWeights() {
+        return this.weights;
+    }
+
+
+    /**
+     * @param type Pattern table 0 to TYPES - 1
+     * @return Number of entries in the table, 3 to the number of squares
+     */
+    public static int tableSize(int type) {
+        return power(SHAPES[type].length);
+    }
+
+
+    /**
+     * @param instance Pattern instance 0 to INSTANCES - 1
+     * @return The table the instance uses
+     */
+    public static int instanceType(int instance) {
+        return INSTANCE_TYPE[instance];
+    }
+
+
+    /**
+     * Compute every pattern index from scratch
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     * @param indices Filled with the index of each instance
+     */
+    public static void computeIndices(long xDiscs, long oDiscs, int[] indices) {
+        for (int i = 0; i < INSTANCES; i++) {
+            int index = 0;
+            for (int sq : INSTANCE_SQUARES[i]) {
+                long bit = Board.bit(sq);
+                index = index * 3 + ((xDiscs & bit) != 0 ? 1 : (oDiscs & bit) != 0 ? 2 : 0);
+            }
+            indices[i] = index;
+        }
+    }
+
+
+    /**
+     * Start tracking a position, reading the whole board
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     */
+    public void setPosition(long xDiscs, long oDiscs) {
+        computeIndices(xDiscs, oDiscs, this.indices);
+    }
+
+
+    /**
+     * Update the indices for a move
+     *
+     * @param square Square played; Board.PASS changes nothing
+     * @param flips Discs the move turned over
+     * @param xMoved true if X made the move
+     */
+    public void play(int square, long flips, boolean xMoved) {
+        if (square == Board.PASS) {
+            return;
+        }
+        this.add(square, xMoved ? 1 : 2);
+        // X turning O over takes each digit from 2 to 1, and the other way
+        int change = xMoved ? -1 : 1;
+        while (flips != 0) {
+            this.add(Long.numberOfTrailingZeros(flips), change);
+            flips &= flips - 1;
+        }
+    }
+
+
+    /**
+     * Reverse play for the same move
+     *
+     * @param square Square played; Board.PASS changes nothing
+     * @param flips Discs the move turned over
+     * @param xMoved true if X made the move
+     */
+    public void undo(int square, long flips, boolean xMoved) {
+        if (square == Board.PASS) {
+            return;
+        }
+        this.add(square, xMoved ? -1 : -2);
+        int change = xMoved ? 1 : -1;
+        while (flips != 0) {
+            this.add(Long.numberOfTrailingZeros(flips), change);
+            flips &= flips - 1;
+        }
+    }
+
+
+    // Add times to the digit for square in every instance that reads it
+    private void add(int square, int times) {
+        int[] instances = SQUARE_INSTANCES[square];
+        int[] powers = SQUARE_POWERS[square];
+        for (int u = 0; u < instances.length; u++) {
+            this.indices[instances[u]] += times * powers[u];
+        }
+    }
+
+
+    /**
+     * Evaluate the tracked position
+     *
+     * @param xToMove true if it is X's move
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @param moves Legal moves of the side to move
+     * @return Score from the point of view of the side to move
+     */
+    public int evaluate(boolean xToMove, long player, long opponent, long moves) {
+        return evaluate(this.weights, this.indices, xToMove, player, opponent, moves);
+    }
+
+
+    /**
+     * Evaluate from a set of pattern indices
+     *
+     * @param weights Weights to use
+     * @param indices Index of each pattern instance
+     * @param xToMove true if it is X's move
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @param moves Legal moves of the side to move
+     * @return Score from the point of view of the side to move
+     */
+    public static int evaluate(Weights weights, int[] indices, boolean xToMove, long player, long opponent,
+            long moves) {
+        int patterns = 0;
+        for (int i = 0; i < INSTANCES; i++) {
+            patterns += weights.tables[INSTANCE_TYPE[i]][indices[i]];
+        }
+        int score = xToMove ? patterns : -patterns;
+        score += weights.mobility * (Long.bitCount(moves) - Long.bitCount(MoveGenerator.legalMoves(opponent, player)));
+        // With an odd number of empties the side to move gets the last move
+        if ((Long.bitCount(~(player | opponent)) & 1) != 0) {
+            score += weights.parity;
+        } else {
+            score -= weights.parity;
+        }
+        return score;
+    }
+
+
+    /**
+     * @return Copy of the current pattern indices
+     */
+    public int[] getIndices() {
+        return this.indices.clone();
+    }
+
+
+    // 3 to the power n
+    private static int power(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,154 @@
+package mvc.tictactoe;
+
+/**
+ * Counts the leaf positions of the game tree to a fixed depth from the
+ * starting position and checks them against the published counts. Any change
+ * to MoveGenerator, Flips or Board that breaks the move rules shows up as a
+ * wrong count, so this is the correctness gate for the move code; the
+ * leaves-per-second figure doubles as its speed benchmark.
+ *
+ * A pass counts as a ply, and a game that ends before the depth is reached
+ * counts as one leaf. With these rules the counts match the standard
+ * sequence 4, 12, 56, 244, ...
+ *
+ * In hashed mode, counts of subtrees are cached by Zobrist hash and depth, so
+ * positions reached by different move orders are only counted once.
+ *
+ * Usage: Perft [depth] [hashMegabytes]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class Perft {
+
+    /** Published leaf counts, indexed by depth */
+    public static final long[] REFERENCE = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L,
+        212258800L, 1939886636L, 18429641748L, 184042084512L
+    };
+
+    // Bytes used by one cache entry: a key and a count
+    private static final int ENTRY_BYTES = 16;
+
+    // Mixed into cache keys so the same position at different depths differs
+    private static final long DEPTH_KEY = 0x9E3779B97F4A7C15L;
+
+    // Subtrees this shallow are cheaper to count again than to look up
+    private static final int CACHE_DEPTH = 3;
+
+    private final long[] keys;
+    private final long[] counts;
+    private final int mask;
+
+
+    /**
+     * Perft constructor for plain counting, without a cache
+     */
+    public Perft() {
+        this.keys = null;
+        this.counts = null;
+        this.mask = 0;
+    }
+
+
+    /**
+     * Perft constructor for hashed counting
+     *
+     * @param megabytes Size of the subtree count cache
+     */
+    public Perft(int megabytes) {
+        int entries = Integer.highestOneBit((int) Math.min(1 << 30,
+                Math.max(1, (long) megabytes * 1024 * 1024 / ENTRY_BYTES)));
+        this.keys = new long[entries];
+        this.counts = new long[entries];
+        this.mask = entries - 1;
+    }
+
+
+    /**
+     * Count the leaves of the game tree below a position
+     *
+     * @param position Position to count from; it is not changed
+     * @param depth Plies to look ahead
+     * @return Number of leaf positions
+     */
+    public long count(Board position, int depth) {
+        return this.count(position.player(), position.opponent(), position.isXToMove(),
+                position.getHash(), depth);
+    }
+
+
+    private long count(long player, long opponent, boolean xToMove, long hash, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = MoveGenerator.legalMoves(player, opponent);
+        if (moves == 0) {
+            if (MoveGenerator.legalMoves(opponent, player) == 0) {
+                return 1;
+            }
+            return this.count(opponent, player, !xToMove, hash ^ Zobrist.O_TO_MOVE, depth - 1);
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+
+        int slot = 0;
+        long key = 0;
+        boolean cached = this.keys != null && depth >= CACHE_DEPTH;
+        if (cached) {
+            key = hash ^ (DEPTH_KEY * depth);
+            slot = (int) key & this.mask;
+            if (this.keys[slot] == key && this.counts[slot] != 0) {
+                return this.counts[slot];
+            }
+        }
+
+        long total = 0;
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flips = Flips.flips(player, opponent, square);
+            long childHash = hash ^ Zobrist.placeKey(square, xToMove) ^ Zobrist.flipKey(flips)
+                    ^ Zobrist.O_TO_MOVE;
+            total += this.count(opponent ^ flips, player ^ flips ^ Board.bit(square),
+                    !xToMove, childHash, depth - 1);
+        }
+
+        if (cached) {
+            this.keys[slot] = key;
+            this.counts[slot] = total;
+        }
+        return total;
+    }
+
+
+    /**
+     * Program entry: count every depth from 1 up and check each against the
+     * published value. Exits with status 1 if any count is wrong.
+     *
+     * @param args depth (default 10) and cache size in megabytes (default 0,
+     * no cache)
+     */
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        boolean ok = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Perft perft = megabytes > 0 ? new Perft(megabytes) : new Perft();
+            long start = System.nanoTime();
+            long leaves = perft.count(new Board(), depth);
+            long nanos = System.nanoTime() - start;
+            String check = "";
+            if (depth < REFERENCE.length) {
+                check = leaves == REFERENCE[depth] ? "ok" : "FAIL expected " + REFERENCE[depth];
+                ok &= leaves == REFERENCE[depth];
+            }
+            System.out.printf("depth %2d  leaves %15d  %9.1f ms  %12.0f leaves/s  %s%n", depth, leaves,
+                    nanos / 1e6, leaves * 1e9 / Math.max(1, nanos), check);
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
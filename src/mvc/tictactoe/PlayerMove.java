@@ -0,0 +1,65 @@
+package mvc.tictactoe;
+
+/**
+ * Payload of playerMove: the square the side to move wants to play
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class PlayerMove {
+
+    // One instance per square, so sending a move allocates nothing
+    private static final PlayerMove[] MOVES = new PlayerMove[Board.SQUARES];
+
+    static {
+        for (int square = 0; square < Board.SQUARES; square++) {
+            MOVES[square] = new PlayerMove(square);
+        }
+    }
+
+    private final int square;
+
+
+    private PlayerMove(int square) {
+        this.square = square;
+    }
+
+
+    /**
+     * @param square Square index 0-63
+     * @return The move to that square
+     */
+    public static PlayerMove of(int square) {
+        return MOVES[square];
+    }
+
+
+    /**
+     * @param position Row and column digits, as in "23"
+     * @return The move to that square
+     */
+    public static PlayerMove of(String position) {
+        return of(Board.square(position.charAt(0) - '0', position.charAt(1) - '0'));
+    }
+
+
+    public int getSquare() {
+        return this.square;
+    }
+
+
+    public int getRow() {
+        return this.square / Board.SIZE;
+    }
+
+
+    public int getCol() {
+        return this.square % Board.SIZE;
+    }
+
+
+    @Override
+    public String toString() {
+        return SearchResult.toPosition(this.square);
+    }
+}
@@ -0,0 +1,528 @@
+package mvc.tictactoe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Index of every position in a GameArchive, for finding the games that
+ * reached a position. Positions are keyed by their symmetry-canonical hash,
+ * so a position is found whichever way round the board was.
+ *
+ * The index is built in one pass over the archive: positions are collected
+ * into runs that are sorted in memory and spilled to temporary files, and the
+ * runs are then merged into the index file. The file is a 32 byte header
+ * (magic "OPX1", version, entry count, reserved) followed by all the keys in
+ * unsigned order and then, in the same order, one value per key: game number
+ * (upper 32 bits), ply (8 bits) and the game's result for the side to move at
+ * that position (lowest 8 bits, signed). Lookups map the file and run an
+ * interpolation search over the keys; the hashes are spread evenly, so only
+ * a few keys are read per lookup.
+ *
+ * Usage: PositionIndex build ARCHIVE INDEX [RUN_ENTRIES] or PositionIndex
+ * query INDEX MOVES..., where MOVES are playerMove squares such as 23
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class PositionIndex implements Closeable {
+
+    /** "OPX1" */
+    public static final int MAGIC = 0x4F505831;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 32;
+
+    /** Entries sorted in memory at a time while building, when none is given */
+    public static final int DEFAULT_RUN_ENTRIES = 1 << 21;
+
+    // Largest number of entries one mapping of the keys can hold
+    private static final long MAX_ENTRIES = Integer.MAX_VALUE / 8;
+
+    /**
+     * How often a position occurred and how those games ended, from X's
+     * point of view
+     */
+    public static class Stats {
+
+        private final int games;
+        private final int xWins;
+        private final int draws;
+        private final int oWins;
+
+
+        /**
+         * Stats constructor
+         *
+         * @param games Games that reached the position
+         * @param xWins Of those, games X won
+         * @param draws Games drawn
+         * @param oWins Games O won
+         */
+        public Stats(int games, int xWins, int draws, int oWins) {
+            this.games = games;
+            this.xWins = xWins;
+            this.draws = draws;
+            this.oWins = oWins;
+        }
+
+
+        public int getGames() {
+            return this.games;
+        }
+
+
+        public int getXWins() {
+            return this.xWins;
+        }
+
+
+        public int getDraws() {
+            return this.draws;
+        }
+
+
+        public int getOWins() {
+            return this.oWins;
+        }
+
+
+        @Override
+        public String toString() {
+            return this.games + " games: X won " + this.xWins + ", drew " + this.draws + ", O won " + this.oWins;
+        }
+    }
+
+    private final FileChannel channel;
+    private final LongBuffer keys;
+    private final LongBuffer values;
+    private final int count;
+
+
+    private PositionIndex(FileChannel channel, LongBuffer keys, LongBuffer values, int count) {
+        this.channel = channel;
+        this.keys = keys;
+        this.values = values;
+        this.count = count;
+    }
+
+
+    /**
+     * Map an index file
+     *
+     * @param file Index file
+     * @return The index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static PositionIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                continue;
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a position index");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(file + " has unsupported index version " + header.getInt(4));
+            }
+            long count = header.getLong(8);
+            if (count > MAX_ENTRIES || HEADER_BYTES + count * 16 > channel.size()) {
+                throw new IOException(file + " is truncated or too large to map");
+            }
+            MappedByteBuffer keys = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, count * 8);
+            MappedByteBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + count * 8,
+                    count * 8);
+            return new PositionIndex(channel, keys.asLongBuffer(), values.asLongBuffer(), (int) count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Key the position is stored under
+     */
+    public static long key(long player, long opponent) {
+        return Symmetry.canonicalHash(player, opponent);
+    }
+
+
+    /**
+     * Find the first entry for a key
+     *
+     * @param key Key to look for
+     * @return Index of the first entry with the key, or -1 if there is none
+     */
+    public int find(long key) {
+        // Interpolation search while the range is large, on unsigned keys
+        // shifted to signed order so plain comparisons work
+        long target = key ^ Long.MIN_VALUE;
+        int low = 0;
+        int high = this.count - 1;
+        while (high - low > 16) {
+            long lowKey = this.keys.get(low) ^ Long.MIN_VALUE;
+            long highKey = this.keys.get(high) ^ Long.MIN_VALUE;
+            if (target < lowKey || target > highKey) {
+                return -1;
+            }
+            int guess = low;
+            if (highKey != lowKey) {
+                double fraction = ((double) target - lowKey) / ((double) highKey - lowKey);
+                guess = low + (int) (fraction * (high - low));
+            }
+            guess = Math.max(low, Math.min(high, guess));
+            long guessKey = this.keys.get(guess) ^ Long.MIN_VALUE;
+            if (guessKey < target) {
+                low = guess + 1;
+            } else if (guessKey > target) {
+                // Rounding can put the guess on high itself, so step past it
+                // to be sure the range shrinks
+                high = guess - 1;
+            } else {
+                // Equal keys are next to each other; back up to the first
+                while (guess > low && this.keys.get(guess - 1) == key) {
+                    guess--;
+                }
+                return guess;
+            }
+        }
+        for (int i = low; i <= high; i++) {
+            if (this.keys.get(i) == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Count a position's games and results
+     *
+     * @param position Position to look up
+     * @return Games that reached it, with their results
+     */
+    public Stats lookup(Board position) {
+        long key = key(position.player(), position.opponent());
+        int games = 0;
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        for (int i = this.find(key); i >= 0 && i < this.count && this.keys.get(i) == key; i++) {
+            int result = getResult(i);
+            games++;
+            if (result > 0) {
+                wins++;
+            } else if (result < 0) {
+                losses++;
+            } else {
+                draws++;
+            }
+        }
+        // Results are stored for the side to move
+        return position.isXToMove() ? new Stats(games, wins, draws, losses)
+                : new Stats(games, losses, draws, wins);
+    }
+
+
+    /**
+     * @param entry Entry index
+     * @return Number of the game in the archive
+     */
+    public int getGame(int entry) {
+        return (int) (this.values.get(entry) >>> 32);
+    }
+
+
+    /**
+     * @param entry Entry index
+     * @return Ply of the game at which the position occurred
+     */
+    public int getPly(int entry) {
+        return (int) (this.values.get(entry) >>> 8) & 0xFF;
+    }
+
+
+    /**
+     * @param entry Entry index
+     * @return Discs the side to move at the position won the game by
+     */
+    public int getResult(int entry) {
+        return (byte) this.values.get(entry);
+    }
+
+
+    /**
+     * @return Number of entries
+     */
+    public int size() {
+        return this.count;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+
+    /**
+     * Build an index of every position in an archive
+     *
+     * @param archive Archive to index
+     * @param index Index file to write
+     * @param runEntries Entries to sort in memory at a time
+     * @return Number of entries
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long build(Path archive, Path index, int runEntries) throws IOException {
+        long[] keys = new long[runEntries];
+        long[] values = new long[runEntries];
+        long[] keyTemp = new long[runEntries];
+        long[] valueTemp = new long[runEntries];
+        List<Path> runs = new ArrayList<>();
+        int size = 0;
+        long total = 0;
+        try {
+            byte[] moves = new byte[GameArchive.MAX_MOVES];
+            Board board = new Board();
+            try (GameArchive.Reader reader = new GameArchive.Reader(archive)) {
+                while (reader.next()) {
+                    long game = reader.getGameNumber();
+                    int count = reader.getMoveCount();
+                    int result = reader.getResult();
+                    reader.getMoves(moves);
+                    board.reset();
+                    for (int ply = 0; ply <= count; ply++) {
+                        if (ply > 0) {
+                            if (MoveGenerator.legalMoves(board) == 0) {
+                                board.makeMove(Board.PASS);
+                            }
+                            board.makeMove(moves[ply - 1]);
+                        }
+                        if (size == runEntries) {
+                            runs.add(writeRun(keys, values, keyTemp, valueTemp, size));
+                            size = 0;
+                        }
+                        int forMover = board.isXToMove() ? result : -result;
+                        keys[size] = key(board.player(), board.opponent());
+                        values[size] = game << 32 | ply << 8 | (forMover & 0xFF);
+                        size++;
+                        total++;
+                    }
+                }
+            }
+            if (total > MAX_ENTRIES) {
+                throw new IOException("Too many positions for one index: " + total);
+            }
+            runs.add(writeRun(keys, values, keyTemp, valueTemp, size));
+            keys = null;
+            values = null;
+            keyTemp = null;
+            valueTemp = null;
+            merge(runs, index, total);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        return total;
+    }
+
+
+    // Sort one run and write it to a temporary file as key/value pairs
+    private static Path writeRun(long[] keys, long[] values, long[] keyTemp, long[] valueTemp, int size)
+            throws IOException {
+        sort(keys, values, keyTemp, valueTemp, size);
+        Path run = Files.createTempFile("positions", ".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(keys[i]);
+                out.writeLong(values[i]);
+            }
+        }
+        return run;
+    }
+
+
+    // LSD radix sort of keys as unsigned numbers, moving values along
+    private static void sort(long[] keys, long[] values, long[] keyTemp, long[] valueTemp, int size) {
+        int[] counts = new int[257];
+        long[] fromKeys = keys;
+        long[] fromValues = values;
+        long[] toKeys = keyTemp;
+        long[] toValues = valueTemp;
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (fromKeys[i] >>> shift) & 0xFF]++;
+            }
+            int sum = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = counts[b];
+                counts[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < size; i++) {
+                int slot = counts[(int) (fromKeys[i] >>> shift) & 0xFF]++;
+                toKeys[slot] = fromKeys[i];
+                toValues[slot] = fromValues[i];
+            }
+            long[] swap = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swap;
+            swap = fromValues;
+            fromValues = toValues;
+            toValues = swap;
+        }
+        // Eight passes leave the sorted data back in the original arrays
+    }
+
+    /**
+     * Reads the entries of one sorted run file in order
+     */
+    private static class RunCursor implements Comparable<RunCursor> {
+
+        private final DataInputStream in;
+        private long remaining;
+        private long key;
+        private long value;
+
+
+        private RunCursor(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+            this.remaining = Files.size(run) / 16;
+        }
+
+
+        private boolean advance() throws IOException {
+            if (this.remaining == 0) {
+                this.in.close();
+                return false;
+            }
+            this.remaining--;
+            this.key = this.in.readLong();
+            this.value = this.in.readLong();
+            return true;
+        }
+
+
+        @Override
+        public int compareTo(RunCursor other) {
+            long a = this.key ^ Long.MIN_VALUE;
+            long b = other.key ^ Long.MIN_VALUE;
+            return a < b ? -1 : a == b ? 0 : 1;
+        }
+    }
+
+
+    // Merge the sorted runs into the index file
+    private static void merge(List<Path> runs, Path index, long total) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(1, runs.size()));
+        try (FileChannel out = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path run : runs) {
+                RunCursor cursor = new RunCursor(run);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(total).putLong(0).putLong(0).flip();
+            long keyPosition = writeAt(out, header, 0);
+            long valuePosition = HEADER_BYTES + total * 8;
+            ByteBuffer keyBuffer = ByteBuffer.allocateDirect(1 << 16);
+            ByteBuffer valueBuffer = ByteBuffer.allocateDirect(1 << 16);
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                if (!keyBuffer.hasRemaining()) {
+                    keyBuffer.flip();
+                    keyPosition = writeAt(out, keyBuffer, keyPosition);
+                    keyBuffer.clear();
+                    valueBuffer.flip();
+                    valuePosition = writeAt(out, valueBuffer, valuePosition);
+                    valueBuffer.clear();
+                }
+                keyBuffer.putLong(cursor.key);
+                valueBuffer.putLong(cursor.value);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            keyBuffer.flip();
+            writeAt(out, keyBuffer, keyPosition);
+            valueBuffer.flip();
+            writeAt(out, valueBuffer, valuePosition);
+        } finally {
+            for (RunCursor cursor : queue) {
+                cursor.in.close();
+            }
+        }
+    }
+
+
+    // Write a whole buffer at a file position; returns the position after it
+    private static long writeAt(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        return position;
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args "build ARCHIVE INDEX [RUN_ENTRIES]" or "query INDEX
+     * MOVES..."
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("build")) {
+            int run = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_RUN_ENTRIES;
+            long start = System.nanoTime();
+            long entries = build(Paths.get(args[1]), Paths.get(args[2]), run);
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%d positions indexed in %.1f s, %.0f positions/s%n", entries, nanos / 1e9,
+                    entries * 1e9 / Math.max(1, nanos));
+        } else if (args.length >= 2 && args[0].equals("query")) {
+            Board board = new Board();
+            for (int i = 2; i < args.length; i++) {
+                if (MoveGenerator.legalMoves(board) == 0) {
+                    board.makeMove(Board.PASS);
+                }
+                board.makeMove(Board.square(args[i].charAt(0) - '0', args[i].charAt(1) - '0'));
+            }
+            try (PositionIndex index = open(Paths.get(args[1]))) {
+                long start = System.nanoTime();
+                Stats stats = index.lookup(board);
+                long nanos = System.nanoTime() - start;
+                System.out.printf("%s (%.3f ms)%n", stats, nanos / 1e6);
+            }
+        } else {
+            System.out.println("Usage: PositionIndex build ARCHIVE INDEX [RUN_ENTRIES]");
+            System.out.println("       PositionIndex query INDEX MOVES...");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package mvc.tictactoe;
+
+import java.util.Random;
+
+/**
+ * Reproducible sets of positions for benchmarks, reached by random play from
+ * the starting position with a fixed seed.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class RandomPositions {
+
+    private RandomPositions() {
+    }
+
+
+    /**
+     * Generate positions that have a given number of empty squares
+     *
+     * @param seed Random seed; the same seed always gives the same positions
+     * @param count Number of positions
+     * @param empties Empty squares in each position, 0-59
+     * @return Positions, each with a legal move for the side to move unless
+     * empties is 0
+     */
+    public static Board[] generate(long seed, int count, int empties) {
+        Random random = new Random(seed);
+        Board[] positions = new Board[count];
+        int found = 0;
+        while (found < count) {
+            Board board = new Board();
+            if (playTo(board, random, empties)) {
+                positions[found++] = new Board(board);
+            }
+        }
+        return positions;
+    }
+
+
+    /**
+     * Play random moves, passing when forced, until the board has the given
+     * number of empty squares
+     *
+     * @param board Board to play on
+     * @param random Source of randomness
+     * @param empties Empty squares to stop at
+     * @return false if the game ended before reaching that point
+     */
+    public static boolean playTo(Board board, Random random, int empties) {
+        while (Long.bitCount(board.empty()) > empties) {
+            long moves = MoveGenerator.legalMoves(board);
+            if (moves == 0) {
+                board.makeMove(Board.PASS);
+                moves = MoveGenerator.legalMoves(board);
+                if (moves == 0) {
+                    return false;
+                }
+            }
+            board.makeMove(randomMove(moves, random));
+        }
+        return empties == 0 || MoveGenerator.legalMoves(board) != 0;
+    }
+
+
+    /**
+     * Pick one move out of a mask at random
+     *
+     * @param moves Mask of legal moves, not empty
+     * @param random Source of randomness
+     * @return Square index of the chosen move
+     */
+    public static int randomMove(long moves, Random random) {
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
@@ -0,0 +1,308 @@
+package mvc.tictactoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file of labelled training positions. After a 16 byte header of
+ * magic "SMP1", version and record size, the file is an array of fixed-size
+ * records, so a reader can map it and go straight to any sample. The number
+ * of samples is worked out from the file size, which keeps a file that was
+ * cut short by a crash readable up to its last whole record.
+ *
+ * Record layout (big-endian, 24 bytes): X disc mask (8), O disc mask (8),
+ * flags (1: bit 0 set if X is to move, bit 1 set if the score is exact),
+ * empty squares (1), score for the side to move in discs (2) and the game
+ * the position came from (4).
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class SampleFile {
+
+    /** "SMP1" */
+    public static final int MAGIC = 0x534D5031;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 16;
+
+    public static final int RECORD_BYTES = 24;
+
+    /** Most records in one mapping, so each stays under 2 GB */
+    public static final int CHUNK_RECORDS = 1 << 26;
+
+    /** Flag bit: X is to move */
+    public static final int X_TO_MOVE = 1;
+
+    /** Flag bit: the score was solved to the end of the game */
+    public static final int EXACT = 2;
+
+    // Offsets of the fields within a record
+    private static final int X_OFFSET = 0;
+    private static final int O_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 16;
+    private static final int EMPTIES_OFFSET = 17;
+    private static final int SCORE_OFFSET = 18;
+    private static final int GAME_OFFSET = 20;
+
+
+    private SampleFile() {
+    }
+
+    /**
+     * Appends samples to a file through a fixed-size buffer, so memory use
+     * does not depend on how many samples are written
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long count;
+
+
+        /**
+         * Writer constructor: creates the file, or appends to it if it
+         * already holds samples
+         *
+         * @param file File to write
+         * @param bufferRecords Samples to collect before each write
+         * @throws IOException if the file cannot be opened or is not a sample
+         * file
+         */
+        public Writer(Path file, int bufferRecords) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = ByteBuffer.allocateDirect(bufferRecords * RECORD_BYTES);
+            try {
+                long size = this.channel.size();
+                if (size < HEADER_BYTES) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0).flip();
+                    this.channel.truncate(0);
+                    this.writeFully(header, 0);
+                    size = HEADER_BYTES;
+                } else {
+                    checkHeader(this.channel, file);
+                }
+                // Drop a partial record left by a crash
+                this.count = (size - HEADER_BYTES) / RECORD_BYTES;
+                this.channel.position(HEADER_BYTES + this.count * RECORD_BYTES);
+            } catch (IOException | RuntimeException e) {
+                this.channel.close();
+                throw e;
+            }
+        }
+
+
+        /**
+         * Add a sample
+         *
+         * @param xDiscs Mask of the squares holding X discs
+         * @param oDiscs Mask of the squares holding O discs
+         * @param xToMove true if it is X's move
+         * @param exact true if the score is solved, not estimated
+         * @param score Score for the side to move in discs
+         * @param game Game number the position came from
+         * @throws IOException if the buffer cannot be written out
+         */
+        public void append(long xDiscs, long oDiscs, boolean xToMove, boolean exact, int score, int game)
+                throws IOException {
+            if (this.buffer.remaining() < RECORD_BYTES) {
+                this.flush();
+            }
+            this.buffer.putLong(xDiscs);
+            this.buffer.putLong(oDiscs);
+            this.buffer.put((byte) ((xToMove ? X_TO_MOVE : 0) | (exact ? EXACT : 0)));
+            this.buffer.put((byte) Long.bitCount(~(xDiscs | oDiscs)));
+            this.buffer.putShort((short) score);
+            this.buffer.putInt(game);
+            this.count++;
+        }
+
+
+        /**
+         * Write out the buffered samples
+         *
+         * @throws IOException if the write fails
+         */
+        public void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+
+        /**
+         * @return Samples in the file, including those still buffered
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+
+
+        private void writeFully(ByteBuffer source, long position) throws IOException {
+            while (source.hasRemaining()) {
+                position += this.channel.write(source, position);
+            }
+        }
+    }
+
+
+    /**
+     * Check that an open file starts with a sample file header
+     *
+     * @param channel Open file
+     * @param file Its name, for the error message
+     * @throws IOException if the header is missing or wrong
+     */
+    public static void checkHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header, header.position());
+        }
+        header.flip();
+        if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a sample file");
+        }
+        if (header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) {
+            throw new IOException(file + " has unsupported sample version " + header.getInt(4));
+        }
+    }
+
+
+    /**
+     * Map the records of a sample file read-only. Record i is at offset
+     * (i % CHUNK_RECORDS) * RECORD_BYTES of chunk i / CHUNK_RECORDS.
+     *
+     * @param file File to map
+     * @return One mapping per chunk of records
+     * @throws IOException if the file cannot be read or is not a sample file
+     */
+    public static MappedByteBuffer[] map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(channel, file);
+            long records = count(channel.size());
+            int chunks = (int) ((records + CHUNK_RECORDS - 1) / CHUNK_RECORDS);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                long first = (long) i * CHUNK_RECORDS;
+                long length = Math.min(CHUNK_RECORDS, records - first) * RECORD_BYTES;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+                        length);
+            }
+            return mapped;
+        }
+    }
+
+
+    /**
+     * Read the game of a file's last whole record
+     *
+     * @param file Sample file
+     * @return Game number of its last record, or -1 if it has none
+     * @throws IOException if the file cannot be read or is not a sample file
+     */
+    public static int lastGame(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = count(channel.size());
+            if (records == 0) {
+                return -1;
+            }
+            checkHeader(channel, file);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            long position = HEADER_BYTES + (records - 1) * RECORD_BYTES;
+            while (record.hasRemaining()) {
+                position += channel.read(record, position);
+            }
+            return game(record, 0);
+        }
+    }
+
+
+    /**
+     * @param fileSize Size of a sample file in bytes
+     * @return Number of whole samples it holds
+     */
+    public static long count(long fileSize) {
+        return Math.max(0, (fileSize - HEADER_BYTES) / RECORD_BYTES);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return Its X disc mask
+     */
+    public static long xDiscs(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + X_OFFSET);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return Its O disc mask
+     */
+    public static long oDiscs(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + O_OFFSET);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return Its flag bits
+     */
+    public static int flags(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + FLAGS_OFFSET);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return Its empty square count
+     */
+    public static int empties(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + EMPTIES_OFFSET);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return Its score for the side to move in discs
+     */
+    public static int score(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + SCORE_OFFSET);
+    }
+
+
+    /**
+     * @param buffer Mapping of sample records
+     * @param offset Offset of a record
+     * @return The game it came from
+     */
+    public static int game(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + GAME_OFFSET);
+    }
+}
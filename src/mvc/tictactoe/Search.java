@@ -0,0 +1,393 @@
+package mvc.tictactoe;
+
+/**
+ * Iterative deepening negamax search with alpha-beta pruning and principal
+ * variation search. Each iteration searches the first move with a full window
+ * and the rest with a null window, re-searching only the ones that beat it.
+ * The search works on its own Board with makeMove/unmakeMove, so nothing is
+ * allocated once it is running. Results are cached in a TranspositionTable
+ * keyed by the Board's Zobrist hash, and the cached best move is tried first.
+ * Leaves are scored by a PatternEvaluator that is updated along with the
+ * Board.
+ * Once few enough squares are empty the position is handed to an
+ * EndgameSolver, which plays perfectly to the end.
+ *
+ * A Search is not thread safe; give each thread its own. Several searches
+ * may share one TranspositionTable, and their endgame solvers another, which
+ * is how ParallelSearch works.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class Search {
+
+    /** Score of a finished game is the disc difference times this */
+    public static final int EXACT_SCALE = 1000;
+
+    /** Larger than any score the search can return */
+    public static final int INFINITY = 1000000;
+
+    /** Deepest search the engine will attempt */
+    public static final int MAX_DEPTH = 60;
+
+    /** Transposition table size used when none is given */
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    // How many nodes to visit between clock checks
+    private static final int CHECK_INTERVAL = 4096;
+
+    // Static square values used for move ordering and the default pattern
+    // weights
+    static final int[] SQUARE_VALUES = {
+        100, -20, 10,  5,  5, 10, -20, 100,
+        -20, -50, -2, -2, -2, -2, -50, -20,
+         10,  -2,  1,  1,  1,  1,  -2,  10,
+          5,  -2,  1,  0,  0,  1,  -2,   5,
+          5,  -2,  1,  0,  0,  1,  -2,   5,
+         10,  -2,  1,  1,  1,  1,  -2,  10,
+        -20, -50, -2, -2, -2, -2, -50, -20,
+        100, -20, 10,  5,  5, 10, -20, 100
+    };
+
+    private final Board board = new Board();
+    private final TranspositionTable table;
+    private final EndgameSolver solver;
+    private final PatternEvaluator evaluator = new PatternEvaluator();
+    private int endgameEmpties = EndgameSolver.DEFAULT_EMPTIES;
+
+    // Move lists for each ply so ordering does not allocate
+    private final int[][] moveLists = new int[MAX_DEPTH * 2 + 2][Board.SQUARES];
+
+    private long nodes;
+    private long tableHits;
+    private long tableMisses;
+    private long deadline;
+    private volatile boolean stopped;
+    private int rootBest;
+
+
+    /**
+     * Search constructor: uses its own transposition tables of the default
+     * size
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+
+    /**
+     * Search constructor: the endgame solver gets its own table of the
+     * default size
+     *
+     * @param table Transposition table to cache results in
+     */
+    public Search(TranspositionTable table) {
+        this(table, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+
+    /**
+     * Search constructor
+     *
+     * @param table Transposition table to cache results in
+     * @param endgameTable Transposition table for the endgame solver; may be
+     * shared with other searches' solvers, but not with any search's table
+     */
+    public Search(TranspositionTable table, TranspositionTable endgameTable) {
+        this.table = table;
+        this.solver = new EndgameSolver(endgameTable);
+    }
+
+
+    /**
+     * Search a position until the time runs out or the depth limit is reached
+     *
+     * @param position Position to search; it is copied, not changed
+     * @param timeMillis Time budget in milliseconds
+     * @param maxDepth Deepest iteration to run, at most MAX_DEPTH
+     * @return Best move from the deepest finished iteration
+     */
+    public SearchResult search(Board position, long timeMillis, int maxDepth) {
+        this.table.newSearch();
+        this.clearStop();
+        return this.iterate(position, System.nanoTime() + timeMillis * 1000000L, 1, maxDepth);
+    }
+
+
+    /**
+     * Run the iterative deepening loop without starting a new table age or
+     * clearing a pending stop request. Used by ParallelSearch, where several
+     * searches share one table and one age.
+     *
+     * @param position Position to search; it is copied, not changed
+     * @param deadline System.nanoTime() value to stop at
+     * @param firstDepth Depth of the first iteration
+     * @param maxDepth Deepest iteration to run, at most MAX_DEPTH
+     * @return Best move from the deepest finished iteration
+     */
+    SearchResult iterate(Board position, long deadline, int firstDepth, int maxDepth) {
+        long start = System.nanoTime();
+        this.board.copyFrom(position);
+        this.evaluator.setPosition(this.board.getXDiscs(), this.board.getODiscs());
+        this.nodes = 0;
+        this.deadline = deadline;
+
+        long moves = MoveGenerator.legalMoves(this.board);
+        if (moves == 0) {
+            return new SearchResult(Board.PASS, 0, 0, 0, System.nanoTime() - start);
+        }
+
+        int empties = Long.bitCount(this.board.empty());
+        if (empties <= this.endgameEmpties) {
+            SearchResult solved = this.solver.run(this.board, deadline);
+            if (solved != null) {
+                return new SearchResult(solved.getMove(), solved.getScore() * EXACT_SCALE,
+                        empties, solved.getNodes(), System.nanoTime() - start);
+            }
+        }
+
+        int bestMove = Long.numberOfTrailingZeros(moves);
+        int bestScore = 0;
+        int depthDone = 0;
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            this.rootBest = bestMove;
+            int score = this.negamax(depth, 0, -INFINITY, INFINITY, false);
+            if (this.stopped) {
+                break;
+            }
+            bestMove = this.rootBest;
+            bestScore = score;
+            depthDone = depth;
+            // No point searching deeper once the game is solved to the end
+            if (depth >= empties) {
+                break;
+            }
+        }
+        return new SearchResult(bestMove, bestScore, depthDone, this.nodes,
+                System.nanoTime() - start);
+    }
+
+
+    /**
+     * Set how many empty squares a position may have for the search to hand
+     * it to the endgame solver
+     *
+     * @param empties Empty squares at or below which to solve exactly; 0
+     * turns the solver off
+     */
+    public void setEndgameEmpties(int empties) {
+        this.endgameEmpties = empties;
+    }
+
+
+    public int getEndgameEmpties() {
+        return this.endgameEmpties;
+    }
+
+
+    /**
+     * Set the pattern weights the evaluation uses
+     *
+     * @param weights Weights to evaluate with
+     */
+    public void setWeights(PatternEvaluator.Weights weights) {
+        this.evaluator.setWeights(weights);
+    }
+
+
+    /**
+     * Ask a running search to stop as soon as possible
+     */
+    public void stop() {
+        this.stopped = true;
+        this.solver.stop();
+    }
+
+
+    /**
+     * Clear a stop request before calling iterate
+     */
+    void clearStop() {
+        this.stopped = false;
+        this.solver.clearStop();
+    }
+
+
+    /**
+     * @return The transposition table this search uses
+     */
+    public TranspositionTable getTable() {
+        return this.table;
+    }
+
+
+    /**
+     * @return Nodes visited by the current or last search
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+
+    /**
+     * @return Table probes by this search that found an entry, since it was
+     * made
+     */
+    public long getTableHits() {
+        return this.tableHits;
+    }
+
+
+    /**
+     * @return Table probes by this search that found nothing, since it was
+     * made
+     */
+    public long getTableMisses() {
+        return this.tableMisses;
+    }
+
+
+    private int negamax(int depth, int ply, int alpha, int beta, boolean passed) {
+        this.nodes++;
+        if ((this.nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > this.deadline) {
+            this.stopped = true;
+        }
+        if (this.stopped) {
+            return 0;
+        }
+
+        long player = this.board.player();
+        long opponent = this.board.opponent();
+        long moves = MoveGenerator.legalMoves(player, opponent);
+        if (moves == 0) {
+            if (passed) {
+                return finalScore(player, opponent);
+            }
+            this.board.makeMove(Board.PASS);
+            int score = -this.negamax(depth, ply + 1, -beta, -alpha, true);
+            this.board.unmakeMove();
+            return score;
+        }
+        if (depth == 0) {
+            return Math.max(-EXACT_SCALE + 1, Math.min(EXACT_SCALE - 1,
+                    this.evaluator.evaluate(this.board.isXToMove(), player, opponent, moves)));
+        }
+
+        long key = this.board.getHash();
+        long entry = this.table.probe(key);
+        int hashMove = -1;
+        if (entry == 0) {
+            this.tableMisses++;
+        } else {
+            this.tableHits++;
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = this.moveLists[ply];
+        int count = this.orderMoves(moves, list, ply == 0 ? this.rootBest : hashMove);
+        boolean xMoving = this.board.isXToMove();
+        int alphaStart = alpha;
+        int best = -INFINITY;
+        int bestMove = Board.PASS;
+        for (int i = 0; i < count; i++) {
+            int square = list[i];
+            long flips = this.board.makeMove(square);
+            this.evaluator.play(square, flips, xMoving);
+            int score;
+            if (i == 0) {
+                score = -this.negamax(depth - 1, ply + 1, -beta, -alpha, false);
+            } else {
+                score = -this.negamax(depth - 1, ply + 1, -alpha - 1, -alpha, false);
+                if (score > alpha && score < beta) {
+                    score = -this.negamax(depth - 1, ply + 1, -beta, -alpha, false);
+                }
+            }
+            this.board.unmakeMove();
+            this.evaluator.undo(square, flips, xMoving);
+            if (this.stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = square;
+                if (ply == 0) {
+                    this.rootBest = square;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > alphaStart ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        this.table.store(key, best, depth, bound, bestMove);
+        return best;
+    }
+
+
+    // Fill list with the moves in mask, the hinted move first and the rest by
+    // square value. Returns the number of moves.
+    private int orderMoves(long moves, int[] list, int first) {
+        int count = 0;
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            int i = count++;
+            // insertion sort; move lists are short
+            while (i > 0 && (square == first
+                    || (list[i - 1] != first && SQUARE_VALUES[square] > SQUARE_VALUES[list[i - 1]]))) {
+                list[i] = list[i - 1];
+                i--;
+            }
+            list[i] = square;
+        }
+        return count;
+    }
+
+
+    /**
+     * Score of a finished game: the disc difference, with the empty squares
+     * going to the winner, times EXACT_SCALE
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Final score from the point of view of the side to move
+     */
+    public static int finalScore(long player, long opponent) {
+        return discDifference(player, opponent) * EXACT_SCALE;
+    }
+
+
+    /**
+     * Disc difference of a finished game with the empty squares going to the
+     * winner
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Player's discs minus opponent's discs
+     */
+    public static int discDifference(long player, long opponent) {
+        int diff = Long.bitCount(player) - Long.bitCount(opponent);
+        int empties = Long.bitCount(~(player | opponent));
+        if (diff > 0) {
+            diff += empties;
+        } else if (diff < 0) {
+            diff -= empties;
+        }
+        return diff;
+    }
+}
@@ -0,0 +1,87 @@
+package mvc.tictactoe;
+
+/**
+ * The outcome of a search: the move to play, its score and how much work it
+ * took to find it.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class SearchResult {
+
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long nanos;
+
+
+    /**
+     * SearchResult constructor
+     *
+     * @param move Best move found, a square index 0-63 or Board.PASS
+     * @param score Score of the move from the mover's point of view
+     * @param depth Deepest iteration that finished
+     * @param nodes Positions visited
+     * @param nanos Time taken in nanoseconds
+     */
+    public SearchResult(int move, int score, int depth, long nodes, long nanos) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+
+    public int getMove() {
+        return this.move;
+    }
+
+
+    public int getScore() {
+        return this.score;
+    }
+
+
+    public int getDepth() {
+        return this.depth;
+    }
+
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+
+    /**
+     * @return Positions visited per second
+     */
+    public long getNodesPerSecond() {
+        return this.nanos == 0 ? 0 : this.nodes * 1000000000L / this.nanos;
+    }
+
+
+    /**
+     * Move as the two digit row/column string used in playerMove messages
+     *
+     * @param square Square index 0-63
+     * @return For example "23" for row 2, column 3
+     */
+    public static String toPosition(int square) {
+        return "" + (square / Board.SIZE) + (square % Board.SIZE);
+    }
+
+
+    @Override
+    public String toString() {
+        return "move " + (this.move == Board.PASS ? "pass" : toPosition(this.move))
+                + " score " + this.score + " depth " + this.depth
+                + " nodes " + this.nodes + " nps " + this.getNodesPerSecond();
+    }
+}
@@ -0,0 +1,275 @@
+package mvc.tictactoe;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Produces training positions by headless self-play. Each worker thread plays
+ * whole games on a Board with the Model's rules: a few random moves to vary
+ * the opening, then fixed-depth searches. Once few enough squares are empty
+ * the search solves the rest of the game exactly, so those positions get an
+ * exact score. Earlier positions are labelled with the result of the game,
+ * which from that point on was played perfectly.
+ *
+ * Every worker writes its own SampleFile shard, samples-SEED-N.bin, through
+ * a fixed-size buffer, so the workers never contend for a file and memory
+ * does not grow with the number of samples.
+ *
+ * Each game written gets its own number: a starting number taken from the
+ * seed plus a count of the games written. The count carries on from the
+ * games already in the seed's shards, so running again with the same seed
+ * appends new numbers, and a game that ends during the random opening moves
+ * is dropped without using one. The Trainer picks its holdout games by
+ * number.
+ *
+ * Usage: SelfPlayGenerator [--out=DIR] [--games=N] [--threads=N]
+ * [--depth=N] [--exact=EMPTIES] [--random=PLIES] [--noise=PERCENT]
+ * [--seed=N]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class SelfPlayGenerator {
+
+    // Samples each worker collects before writing
+    private static final int BUFFER_RECORDS = 8192;
+
+    // Time limit for one search; the depth limit is what stops it
+    private static final long SEARCH_MILLIS = 60 * 60 * 1000L;
+
+    private final Path outDir;
+    private final int games;
+    private final int threads;
+    private final int depth;
+    private final int exactEmpties;
+    private final int randomPlies;
+    private final int noise;
+    private final long seed;
+
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicLong samples = new AtomicLong();
+
+    // First error that stopped a worker, rethrown by run
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+
+    /**
+     * SelfPlayGenerator constructor
+     *
+     * @param outDir Directory for the shard files
+     * @param games Games to play in total
+     * @param threads Worker threads, one shard each
+     * @param depth Search depth for each move
+     * @param exactEmpties Empty squares at or below which positions are
+     * solved exactly
+     * @param randomPlies Random moves at the start of each game
+     * @param noise Percent chance of a random move after the opening
+     * @param seed Random seed; also names the shards
+     */
+    public SelfPlayGenerator(Path outDir, int games, int threads, int depth, int exactEmpties,
+            int randomPlies, int noise, long seed) {
+        this.outDir = outDir;
+        this.games = games;
+        this.threads = threads;
+        this.depth = depth;
+        this.exactEmpties = exactEmpties;
+        this.randomPlies = randomPlies;
+        this.noise = noise;
+        this.seed = seed;
+    }
+
+
+    /**
+     * Play every game, printing progress every few seconds. A worker that
+     * fails stops; the others play on, and the first failure is thrown once
+     * they are done.
+     *
+     * @throws IOException if the output directory cannot be created or a
+     * worker could not write its shard
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run() throws IOException, InterruptedException {
+        Files.createDirectories(this.outDir);
+        this.written.set(this.gamesInShards());
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            final int worker = i;
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        work(worker);
+                    } catch (IOException e) {
+                        System.err.println("Worker " + worker + " stopped: " + e.getMessage());
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            this.report(start);
+        }
+        this.report(start);
+        if (this.failure.get() != null) {
+            throw this.failure.get();
+        }
+    }
+
+
+    /**
+     * @return Samples written so far
+     */
+    public long getSamples() {
+        return this.samples.get();
+    }
+
+
+    // Worker loop: play games until the total is reached
+    private void work(int worker) throws IOException {
+        Search search = new Search();
+        search.setEndgameEmpties(this.exactEmpties);
+        Random random = new Random(this.seed * 31 + worker);
+        Path shard = this.outDir.resolve("samples-" + this.seed + "-" + worker + ".bin");
+        long[] xDiscs = new long[Board.SQUARES];
+        long[] oDiscs = new long[Board.SQUARES];
+        boolean[] xToMove = new boolean[Board.SQUARES];
+        int[] scores = new int[Board.SQUARES];
+        boolean[] exact = new boolean[Board.SQUARES];
+
+        try (SampleFile.Writer writer = new SampleFile.Writer(shard, BUFFER_RECORDS)) {
+            while (this.nextGame.getAndIncrement() < this.games) {
+                Board board = new Board();
+                if (!RandomPositions.playTo(board, random, Board.SQUARES - 4 - this.randomPlies)) {
+                    continue;
+                }
+                int count = 0;
+                while (true) {
+                    long moves = MoveGenerator.legalMoves(board);
+                    if (moves == 0) {
+                        if (MoveGenerator.legalMoves(board.opponent(), board.player()) == 0) {
+                            break;
+                        }
+                        board.makeMove(Board.PASS);
+                        continue;
+                    }
+                    int empties = Long.bitCount(board.empty());
+                    boolean solved = empties <= this.exactEmpties;
+                    int square;
+                    int score = 0;
+                    if (!solved && random.nextInt(100) < this.noise) {
+                        square = RandomPositions.randomMove(moves, random);
+                    } else {
+                        SearchResult result = search.search(board, SEARCH_MILLIS,
+                                solved ? empties : this.depth);
+                        square = result.getMove();
+                        score = result.getScore() / Search.EXACT_SCALE;
+                    }
+                    xDiscs[count] = board.getXDiscs();
+                    oDiscs[count] = board.getODiscs();
+                    xToMove[count] = board.isXToMove();
+                    scores[count] = score;
+                    exact[count] = solved;
+                    count++;
+                    board.makeMove(square);
+                }
+
+                // Numbered only now, so games dropped above use no number
+                int gameId = this.gameId(this.written.getAndIncrement());
+                // Positions before the solved part take the game's result
+                int xResult = Search.discDifference(board.getXDiscs(), board.getODiscs());
+                for (int i = 0; i < count; i++) {
+                    int score = exact[i] ? scores[i] : xToMove[i] ? xResult : -xResult;
+                    writer.append(xDiscs[i], oDiscs[i], xToMove[i], exact[i], score, gameId);
+                }
+                this.samples.addAndGet(count);
+            }
+        }
+    }
+
+
+    // Number of a game from its count, counting from a start taken from the
+    // seed; never negative, so the Trainer's holdout test works
+    private int gameId(int count) {
+        int first = (int) (this.seed * 0x9E3779B97F4A7C15L >>> 33);
+        return (first + count) & Integer.MAX_VALUE;
+    }
+
+
+    // Games already written to this seed's shards, worked out from the
+    // highest game number found at the end of a shard
+    private int gamesInShards() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(this.outDir,
+                "samples-" + this.seed + "-*.bin")) {
+            for (Path shard : shards) {
+                int last = SampleFile.lastGame(shard);
+                if (last >= 0) {
+                    count = Math.max(count, ((last - this.gameId(0)) & Integer.MAX_VALUE) + 1);
+                }
+            }
+        }
+        return count;
+    }
+
+
+    private void report(long start) {
+        long nanos = System.nanoTime() - start;
+        long done = Math.min(this.nextGame.get(), this.games);
+        System.out.printf("%d games, %d samples, %.1f s, %.0f samples/s%n", done, this.samples.get(),
+                nanos / 1e9, this.samples.get() * 1e9 / Math.max(1, nanos));
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args Options as described in the class comment
+     * @throws Exception if the samples cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        String out = "samples";
+        int games = 10000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = 4;
+        int exact = 14;
+        int plies = 10;
+        int noise = 5;
+        long seed = System.currentTimeMillis();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--out=")) {
+                out = value;
+            } else if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(value);
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--depth=")) {
+                depth = Integer.parseInt(value);
+            } else if (arg.startsWith("--exact=")) {
+                exact = Integer.parseInt(value);
+            } else if (arg.startsWith("--random=")) {
+                plies = Integer.parseInt(value);
+            } else if (arg.startsWith("--noise=")) {
+                noise = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        new SelfPlayGenerator(Paths.get(out), games, threads, depth, exact, plies, noise, seed).run();
+    }
+}
@@ -0,0 +1,71 @@
+package mvc.tictactoe;
+
+/**
+ * Measures how ParallelSearch scales with threads. A fixed set of positions
+ * is searched to a fixed depth with 1, 2, 4, ... threads and the time, nodes
+ * per second and speedup over one thread are printed for each thread count.
+ *
+ * Usage: SmpBenchmark [maxThreads] [depth] [positions]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class SmpBenchmark {
+
+    // Long enough that the depth limit, not the clock, ends each search
+    private static final long NO_TIME_LIMIT = 3600 * 1000L;
+
+    // Positions are taken after this many moves of random play
+    private static final int EMPTIES = 44;
+
+
+    /**
+     * Program entry
+     *
+     * @param args maxThreads (default one per processor), depth (default 12)
+     * and number of positions (default 8)
+     */
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Board[] positions = RandomPositions.generate(20141003L, count, EMPTIES);
+
+        // Warm up the JIT before timing anything
+        ParallelSearch warmup = new ParallelSearch(1, Search.DEFAULT_TABLE_MB);
+        run(warmup, positions, Math.min(depth, 8));
+        warmup.shutdown();
+
+        long baseNanos = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, 64);
+            long nodes = 0;
+            long nanos = 0;
+            for (SearchResult result : run(search, positions, depth)) {
+                nodes += result.getNodes();
+                nanos += result.getNanos();
+            }
+            search.shutdown();
+            if (threads == 1) {
+                baseNanos = nanos;
+            }
+            System.out.printf("threads %3d  time %8d ms  nodes %12d  nps %10d  speedup %.2f%n",
+                    threads, nanos / 1000000, nodes, nodes * 1000000000L / Math.max(1, nanos),
+                    (double) baseNanos / Math.max(1, nanos));
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+
+    private static SearchResult[] run(ParallelSearch search, Board[] positions, int depth) {
+        SearchResult[] results = new SearchResult[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            search.getTable().clear();
+            results[i] = search.search(positions[i], NO_TIME_LIMIT, depth);
+        }
+        return results;
+    }
+}
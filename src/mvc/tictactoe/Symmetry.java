@@ -0,0 +1,244 @@
+package mvc.tictactoe;
+
+/**
+ * The eight rotations and reflections of the board. Positions that are
+ * rotations or reflections of each other play the same way, so books and
+ * indexes store only one of them: the canonical form, which is the transform
+ * with the smallest disc masks.
+ *
+ * Transforms are numbered 0-7: identity, rotate 90, rotate 180, rotate 270,
+ * flip rows, flip columns, transpose and anti-transpose. Masks are
+ * transformed with shifts and masks rather than square by square: a row is a
+ * byte of the mask, so flipping the rows reverses the bytes, flipping the
+ * columns reverses the bits within each byte, and the transpose swaps bits
+ * across the diagonal in three delta swaps. The others are combinations of
+ * these. Nothing here allocates, so positions can be canonicalised in hot
+ * loops.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class Symmetry {
+
+    /** Number of transforms */
+    public static final int COUNT = 8;
+
+    // SQUARES[t][sq] is where square sq ends up under transform t
+    private static final int[][] SQUARES = new int[COUNT][Board.SQUARES];
+
+    // Bit t set for the transforms that include a transpose, a column flip
+    // and a row flip, applied in that order
+    private static final int TRANSPOSES = 0xCA;
+    private static final int COLUMN_FLIPS = 0xA6;
+    private static final int ROW_FLIPS = 0x9C;
+
+    // Transform that undoes each transform
+    private static final int[] INVERSE = {0, 3, 2, 1, 4, 5, 6, 7};
+
+    static {
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            int r = sq / Board.SIZE;
+            int c = sq % Board.SIZE;
+            int m = Board.SIZE - 1;
+            SQUARES[0][sq] = Board.square(r, c);
+            SQUARES[1][sq] = Board.square(c, m - r);
+            SQUARES[2][sq] = Board.square(m - r, m - c);
+            SQUARES[3][sq] = Board.square(m - c, r);
+            SQUARES[4][sq] = Board.square(m - r, c);
+            SQUARES[5][sq] = Board.square(r, m - c);
+            SQUARES[6][sq] = Board.square(c, r);
+            SQUARES[7][sq] = Board.square(m - c, m - r);
+        }
+    }
+
+
+    private Symmetry() {
+    }
+
+
+    /**
+     * Apply a transform to a square
+     *
+     * @param square Square index 0-63; Board.PASS is returned unchanged
+     * @param transform Transform 0-7
+     * @return Transformed square index
+     */
+    public static int transformSquare(int square, int transform) {
+        return square == Board.PASS ? square : SQUARES[transform][square];
+    }
+
+
+    /**
+     * @param transform Transform 0-7
+     * @return The transform that undoes it
+     */
+    public static int inverse(int transform) {
+        return INVERSE[transform];
+    }
+
+
+    /**
+     * Apply a transform to a board mask
+     *
+     * @param mask Board mask
+     * @param transform Transform 0-7
+     * @return Transformed mask
+     */
+    public static long transform(long mask, int transform) {
+        // Every transform is a transpose, then a column flip, then a row
+        // flip, each done or not. Each step is always computed and kept or
+        // dropped with a mask, so a transform number that changes from call
+        // to call costs no mispredicted branches.
+        long keep = -(long) ((TRANSPOSES >>> transform) & 1);
+        mask ^= (transpose(mask) ^ mask) & keep;
+        keep = -(long) ((COLUMN_FLIPS >>> transform) & 1);
+        mask ^= (flipColumns(mask) ^ mask) & keep;
+        keep = -(long) ((ROW_FLIPS >>> transform) & 1);
+        return mask ^ ((flipRows(mask) ^ mask) & keep);
+    }
+
+
+    /**
+     * @param mask Board mask
+     * @return The mask with row r moved to row 7 - r
+     */
+    public static long flipRows(long mask) {
+        return Long.reverseBytes(mask);
+    }
+
+
+    /**
+     * @param mask Board mask
+     * @return The mask with column c moved to column 7 - c
+     */
+    public static long flipColumns(long mask) {
+        mask = ((mask >>> 1) & 0x5555555555555555L) | ((mask & 0x5555555555555555L) << 1);
+        mask = ((mask >>> 2) & 0x3333333333333333L) | ((mask & 0x3333333333333333L) << 2);
+        return ((mask >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((mask & 0x0F0F0F0F0F0F0F0FL) << 4);
+    }
+
+
+    /**
+     * @param mask Board mask
+     * @return The mask with the square at row r, column c moved to row c,
+     * column r
+     */
+    public static long transpose(long mask) {
+        // Swap 4x4 blocks, then 2x2 blocks within them, then single squares
+        long t = 0x0F0F0F0F00000000L & (mask ^ (mask << 28));
+        mask ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (mask ^ (mask << 14));
+        mask ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (mask ^ (mask << 7));
+        return mask ^ t ^ (t >>> 7);
+    }
+
+
+    /**
+     * Find the transform that puts a position in canonical form: the one with
+     * the smallest player mask, then the smallest opponent mask, compared as
+     * unsigned numbers
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Transform 0-7
+     */
+    public static int canonicalTransform(long player, long opponent) {
+        // All eight player masks come from one transpose, two column flips
+        // and byte swaps. The smallest is found without branches, which the
+        // processor could not predict, and ties gets a bit for every
+        // transform that reaches it. Only a symmetric player mask gives more
+        // than one, and then the opponent masks decide.
+        long mirrored = flipColumns(player);
+        long transposed = transpose(player);
+        long rotated = flipColumns(transposed);
+        long p1 = rotated;
+        long p2 = flipRows(mirrored);
+        long p3 = flipRows(transposed);
+        long p4 = flipRows(player);
+        long p7 = flipRows(rotated);
+        long best = minUnsigned(minUnsigned(minUnsigned(player, p1), minUnsigned(p2, p3)),
+                minUnsigned(minUnsigned(p4, mirrored), minUnsigned(transposed, p7)));
+        int ties = equal(player, best) | equal(p1, best) << 1 | equal(p2, best) << 2 | equal(p3, best) << 3
+                | equal(p4, best) << 4 | equal(mirrored, best) << 5 | equal(transposed, best) << 6
+                | equal(p7, best) << 7;
+        int transform = Integer.numberOfTrailingZeros(ties);
+        ties &= ties - 1;
+        if (ties != 0) {
+            long bestOpponent = transform(opponent, transform) ^ Long.MIN_VALUE;
+            while (ties != 0) {
+                int t = Integer.numberOfTrailingZeros(ties);
+                long o = transform(opponent, t) ^ Long.MIN_VALUE;
+                if (o < bestOpponent) {
+                    transform = t;
+                    bestOpponent = o;
+                }
+                ties &= ties - 1;
+            }
+        }
+        return transform;
+    }
+
+
+    /**
+     * Put a position in canonical form
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @param canonical Receives the canonical player mask at index 0 and the
+     * canonical opponent mask at index 1
+     * @return The transform that was applied, 0-7
+     */
+    public static int canonicalize(long player, long opponent, long[] canonical) {
+        int t = canonicalTransform(player, opponent);
+        canonical[0] = transform(player, t);
+        canonical[1] = transform(opponent, t);
+        return t;
+    }
+
+
+    /**
+     * Hash of a position that is the same for all eight of its transforms
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return Hash of the canonical form
+     */
+    public static long canonicalHash(long player, long opponent) {
+        int t = canonicalTransform(player, opponent);
+        return hash(transform(player, t), transform(opponent, t));
+    }
+
+
+    /**
+     * Fixed hash of a player/opponent pair. It never changes between runs, so
+     * it is safe to store in files.
+     *
+     * @param player Discs of the side to move
+     * @param opponent Discs of the other side
+     * @return 64-bit hash
+     */
+    public static long hash(long player, long opponent) {
+        long h = player * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h += opponent * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 32);
+    }
+
+
+    // Smaller of two masks as unsigned numbers, without a branch: the sign
+    // of less is the borrow out of a - b
+    private static long minUnsigned(long a, long b) {
+        long less = ((~a & b) | ((~a | b) & (a - b))) >> 63;
+        return b ^ ((a ^ b) & less);
+    }
+
+
+    // 1 if the masks are equal, otherwise 0, without a branch
+    private static int equal(long a, long b) {
+        long difference = a ^ b;
+        return (int) ((difference | -difference) >>> 63) ^ 1;
+    }
+}
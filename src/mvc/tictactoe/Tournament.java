@@ -0,0 +1,410 @@
+package mvc.tictactoe;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless engine-versus-engine match runner. No View or MessageBus is
+ * involved: games are played straight on Board with the same rules the Model
+ * uses, many at once on a thread pool.
+ *
+ * Every opening is played twice with the colors swapped, so neither engine
+ * gets an edge from the openings. Openings are random moves from the start
+ * position (seeded, so a match can be repeated), random lines through an
+ * OpeningBook that stop where the book ends, or lines read from a file, one
+ * opening per line as playerMove squares separated by spaces, for example
+ * "23 22 32".
+ *
+ * Each worker thread keeps a Search for each engine, and each Search has a
+ * transposition table and an endgame table, so the match needs
+ * 2 * (table + endgame table) megabytes per thread.
+ *
+ * Usage: Tournament [--games=N] [--threads=N] [--random=PLIES]
+ * [--openings=FILE] [--book=FILE] [--seed=N] [--table=MB]
+ * [--endgame-table=MB] [--a=NAME:MILLIS:DEPTH] [--b=NAME:MILLIS:DEPTH]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class Tournament {
+
+    /**
+     * One of the two engines in a match, with its settings and running totals
+     */
+    public static class Entrant {
+
+        private final String name;
+        private final long millis;
+        private final int depth;
+        private final AtomicLong wins = new AtomicLong();
+        private final AtomicLong losses = new AtomicLong();
+        private final AtomicLong draws = new AtomicLong();
+        private final AtomicLong discs = new AtomicLong();
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+
+        /**
+         * Entrant constructor
+         *
+         * @param name Name to print in the results
+         * @param millis Time per move in milliseconds
+         * @param depth Deepest search per move
+         */
+        public Entrant(String name, long millis, int depth) {
+            this.name = name;
+            this.millis = millis;
+            this.depth = depth;
+        }
+
+
+        /**
+         * Parse an entrant from NAME:MILLIS:DEPTH
+         *
+         * @param spec Entrant description
+         * @return The entrant
+         */
+        public static Entrant parse(String spec) {
+            String[] parts = spec.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected NAME:MILLIS:DEPTH, got " + spec);
+            }
+            return new Entrant(parts[0], Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        }
+
+
+        public String getName() {
+            return this.name;
+        }
+
+
+        public long getWins() {
+            return this.wins.get();
+        }
+
+
+        public long getLosses() {
+            return this.losses.get();
+        }
+
+
+        public long getDraws() {
+            return this.draws.get();
+        }
+
+
+        /**
+         * @return Average search speed over every move this entrant made
+         */
+        public long getNodesPerSecond() {
+            return this.nodes.get() * 1000000000L / Math.max(1, this.nanos.get());
+        }
+
+
+        @Override
+        public String toString() {
+            long games = this.getWins() + this.getLosses() + this.getDraws();
+            return String.format("%-10s (%d ms, depth %d): %d wins %d losses %d draws, "
+                    + "avg disc diff %+.2f, %d nps", this.name, this.millis, this.depth,
+                    this.getWins(), this.getLosses(), this.getDraws(),
+                    (double) this.discs.get() / Math.max(1, games), this.getNodesPerSecond());
+        }
+    }
+
+    private final Entrant[] entrants;
+    private final List<Board> openings;
+    private final int threads;
+    private final int tableMegabytes;
+    private final int endgameMegabytes;
+
+    // Each worker thread keeps one Search per entrant for the whole match
+    private final ThreadLocal<Search[]> searches = new ThreadLocal<Search[]>() {
+        @Override
+        protected Search[] initialValue() {
+            return new Search[] {newSearch(), newSearch()};
+        }
+    };
+
+
+    /**
+     * Tournament constructor: every Search gets tables of the default size
+     *
+     * @param a First engine
+     * @param b Second engine
+     * @param openings Starting positions; each is played once with each
+     * engine as X
+     * @param threads Games played at the same time
+     */
+    public Tournament(Entrant a, Entrant b, List<Board> openings, int threads) {
+        this(a, b, openings, threads, Search.DEFAULT_TABLE_MB, Search.DEFAULT_TABLE_MB);
+    }
+
+
+    /**
+     * Tournament constructor
+     *
+     * @param a First engine
+     * @param b Second engine
+     * @param openings Starting positions; each is played once with each
+     * engine as X
+     * @param threads Games played at the same time
+     * @param tableMegabytes Transposition table size of each Search
+     * @param endgameMegabytes Endgame solver table size of each Search
+     */
+    public Tournament(Entrant a, Entrant b, List<Board> openings, int threads, int tableMegabytes,
+            int endgameMegabytes) {
+        this.entrants = new Entrant[] {a, b};
+        this.openings = openings;
+        this.threads = threads;
+        this.tableMegabytes = tableMegabytes;
+        this.endgameMegabytes = endgameMegabytes;
+    }
+
+
+    /**
+     * Play every game and wait for them to finish
+     *
+     * @return Time taken in nanoseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long run() throws InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        for (final Board opening : this.openings) {
+            for (int swap = 0; swap < 2; swap++) {
+                final int xIndex = swap;
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        playGame(opening, xIndex);
+                    }
+                });
+            }
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        return System.nanoTime() - start;
+    }
+
+
+    /**
+     * @return Number of games in the match
+     */
+    public int getGames() {
+        return this.openings.size() * 2;
+    }
+
+
+    // A Search with the match's table sizes
+    private Search newSearch() {
+        return new Search(new TranspositionTable(this.tableMegabytes),
+                new TranspositionTable(this.endgameMegabytes));
+    }
+
+
+    // Play one game from an opening with entrants[xIndex] as X
+    private void playGame(Board opening, int xIndex) {
+        Search[] search = this.searches.get();
+        Board board = new Board(opening);
+        while (true) {
+            if (MoveGenerator.legalMoves(board) == 0) {
+                if (MoveGenerator.legalMoves(board.opponent(), board.player()) == 0) {
+                    break;
+                }
+                board.makeMove(Board.PASS);
+                continue;
+            }
+            int mover = board.isXToMove() ? xIndex : 1 - xIndex;
+            Entrant entrant = this.entrants[mover];
+            SearchResult result = search[mover].search(board, entrant.millis, entrant.depth);
+            entrant.nodes.addAndGet(result.getNodes());
+            entrant.nanos.addAndGet(result.getNanos());
+            board.makeMove(result.getMove());
+        }
+
+        int xDiff = Search.discDifference(board.getXDiscs(), board.getODiscs());
+        Entrant x = this.entrants[xIndex];
+        Entrant o = this.entrants[1 - xIndex];
+        x.discs.addAndGet(xDiff);
+        o.discs.addAndGet(-xDiff);
+        if (xDiff > 0) {
+            x.wins.incrementAndGet();
+            o.losses.incrementAndGet();
+        } else if (xDiff < 0) {
+            o.wins.incrementAndGet();
+            x.losses.incrementAndGet();
+        } else {
+            x.draws.incrementAndGet();
+            o.draws.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Random openings, reproducible from the seed
+     *
+     * @param seed Random seed
+     * @param count Number of openings
+     * @param plies Random moves in each opening
+     * @return Opening positions
+     */
+    public static List<Board> randomOpenings(long seed, int count, int plies) {
+        List<Board> openings = new ArrayList<>(count);
+        for (Board board : RandomPositions.generate(seed, count, Board.SQUARES - 4 - plies)) {
+            openings.add(board);
+        }
+        return openings;
+    }
+
+
+    /**
+     * Random openings that follow an opening book: each move is picked, from
+     * a seeded random, among the legal moves that lead to a position in the
+     * book, and the opening ends where the book does or after the given
+     * number of moves. Openings that are the same up to symmetry are kept
+     * once, so fewer than count may come back from a small book.
+     *
+     * @param book Opening book to follow
+     * @param seed Random seed
+     * @param count Number of openings wanted
+     * @param plies Most moves in each opening
+     * @return Opening positions
+     */
+    public static List<Board> bookOpenings(OpeningBook book, long seed, int count, int plies) {
+        Random random = new Random(seed);
+        Set<Long> seen = new HashSet<>();
+        List<Board> openings = new ArrayList<>(count);
+        for (int attempt = 0; attempt < count * 20 && openings.size() < count; attempt++) {
+            Board board = new Board();
+            for (int ply = 0; ply < plies; ply++) {
+                long inBook = 0;
+                for (long moves = MoveGenerator.legalMoves(board); moves != 0; moves &= moves - 1) {
+                    int square = Long.numberOfTrailingZeros(moves);
+                    board.makeMove(square);
+                    if (book.probe(board) != null) {
+                        inBook |= Board.bit(square);
+                    }
+                    board.unmakeMove();
+                }
+                if (inBook == 0) {
+                    break;
+                }
+                board.makeMove(RandomPositions.randomMove(inBook, random));
+            }
+            if (seen.add(Symmetry.canonicalHash(board.player(), board.opponent()))) {
+                openings.add(new Board(board));
+            }
+        }
+        return openings;
+    }
+
+
+    /**
+     * Read openings from a file, one line of playerMove squares per opening.
+     * Blank lines and lines starting with # are skipped.
+     *
+     * @param fileName File to read
+     * @return Opening positions
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Board> readOpenings(String fileName) throws IOException {
+        List<Board> openings = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Board board = new Board();
+                for (String move : line.split("\\s+")) {
+                    int square = Board.square(move.charAt(0) - '0', move.charAt(1) - '0');
+                    if (MoveGenerator.legalMoves(board) == 0) {
+                        board.makeMove(Board.PASS);
+                    }
+                    if ((MoveGenerator.legalMoves(board) & Board.bit(square)) == 0) {
+                        throw new IllegalArgumentException("Illegal move " + move + " in opening: " + line);
+                    }
+                    board.makeMove(square);
+                }
+                openings.add(new Board(board));
+            }
+        }
+        return openings;
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args Options as described in the class comment
+     * @throws Exception if the openings cannot be read or the match is
+     * interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = 8;
+        long seed = 20141003L;
+        String openingsFile = null;
+        String bookFile = null;
+        int tableMegabytes = Search.DEFAULT_TABLE_MB;
+        int endgameMegabytes = Search.DEFAULT_TABLE_MB;
+        Entrant a = new Entrant("A", 10, Search.MAX_DEPTH);
+        Entrant b = new Entrant("B", 10, Search.MAX_DEPTH);
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(value);
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--random=")) {
+                plies = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--openings=")) {
+                openingsFile = value;
+            } else if (arg.startsWith("--book=")) {
+                bookFile = value;
+            } else if (arg.startsWith("--table=")) {
+                tableMegabytes = Integer.parseInt(value);
+            } else if (arg.startsWith("--endgame-table=")) {
+                endgameMegabytes = Integer.parseInt(value);
+            } else if (arg.startsWith("--a=")) {
+                a = Entrant.parse(value);
+            } else if (arg.startsWith("--b=")) {
+                b = Entrant.parse(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        List<Board> openings;
+        if (openingsFile != null) {
+            openings = readOpenings(openingsFile);
+        } else if (bookFile != null) {
+            try (OpeningBook book = OpeningBook.open(Paths.get(bookFile))) {
+                openings = bookOpenings(book, seed, (games + 1) / 2, plies);
+            }
+        } else {
+            openings = randomOpenings(seed, (games + 1) / 2, plies);
+        }
+        Tournament tournament = new Tournament(a, b, openings, threads, tableMegabytes, endgameMegabytes);
+        long nanos = tournament.run();
+        System.out.println(a);
+        System.out.println(b);
+        System.out.printf("%d games on %d threads in %.1f s, %.2f games/s%n", tournament.getGames(),
+                threads, nanos / 1e9, tournament.getGames() * 1e9 / nanos);
+    }
+}
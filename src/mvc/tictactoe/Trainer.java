@@ -0,0 +1,518 @@
+package mvc.tictactoe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits the PatternEvaluator weights to SampleFile shards by mini-batch
+ * gradient descent on the squared error between the evaluation and the
+ * sample scores.
+ *
+ * The shards are memory-mapped and each sample is read straight from the
+ * mapping. Samples are taken in blocks of consecutive records, in an order
+ * shuffled each epoch. Every batch is split over the worker threads; each
+ * thread adds its gradient into its own accumulator, and the accumulators are
+ * merged and applied once the batch is done. Each weight is moved by its
+ * gradient divided by the sum of its squared feature values over the batch
+ * (for a pattern weight, the number of samples that used it), since most
+ * weights are only seen by a few samples. With a rate of 1 every weight would
+ * take an equal share of correcting the average error.
+ *
+ * Samples from every HOLDOUT-th game are not trained on; their error is
+ * reported each epoch as the validation loss. After every epoch the weights
+ * and epoch number are saved to the checkpoint file, and a new run with the
+ * same checkpoint carries on from there. The weights are also written as a
+ * PatternEvaluator weight file for Search to load.
+ *
+ * Usage: Trainer --samples=DIR_OR_FILE[,...] [--epochs=N] [--batch=N]
+ * [--rate=R] [--threads=N] [--checkpoint=FILE] [--out=FILE] [--seed=N]
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class Trainer {
+
+    /** Evaluation units per disc of sample score */
+    public static final int EVAL_PER_DISC = 10;
+
+    /** One game in this many is held out for validation */
+    public static final int HOLDOUT = 20;
+
+    // "TRN1"
+    private static final int CHECKPOINT_MAGIC = 0x54524E31;
+
+    // Consecutive samples read together
+    private static final int BLOCK = 1024;
+
+    // Weights that contribute to each sample's evaluation
+    private static final int FEATURES = PatternEvaluator.INSTANCES + 2;
+
+    /**
+     * Gradient sums for one thread. Only the entries a batch touched are
+     * cleared afterwards.
+     */
+    private static class Accumulator {
+
+        private final float[][] gradients = new float[PatternEvaluator.TYPES][];
+        private final int[][] hits = new int[PatternEvaluator.TYPES][];
+        private int[] touched = new int[4096];
+        private int touchedCount;
+        private final int[] indices = new int[PatternEvaluator.INSTANCES];
+        private double mobility;
+        private double mobilitySquares;
+        private double parity;
+        private double paritySquares;
+        private double loss;
+        private long samples;
+        private double holdoutLoss;
+        private long holdoutSamples;
+
+
+        private Accumulator() {
+            for (int type = 0; type < PatternEvaluator.TYPES; type++) {
+                this.gradients[type] = new float[PatternEvaluator.tableSize(type)];
+                this.hits[type] = new int[PatternEvaluator.tableSize(type)];
+            }
+        }
+
+
+        // Add to the gradient of one pattern weight
+        private void add(int type, int index, float gradient) {
+            if (this.hits[type][index]++ == 0) {
+                if (this.touchedCount == this.touched.length) {
+                    this.touched = Arrays.copyOf(this.touched, this.touched.length * 2);
+                }
+                // Type in the top byte, index below it
+                this.touched[this.touchedCount++] = type << 24 | index;
+            }
+            this.gradients[type][index] += gradient;
+        }
+
+
+        private void clearBatch() {
+            for (int i = 0; i < this.touchedCount; i++) {
+                int type = this.touched[i] >>> 24;
+                int index = this.touched[i] & 0xFFFFFF;
+                this.gradients[type][index] = 0;
+                this.hits[type][index] = 0;
+            }
+            this.touchedCount = 0;
+            this.mobility = 0;
+            this.mobilitySquares = 0;
+            this.parity = 0;
+            this.paritySquares = 0;
+        }
+    }
+
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final int threads;
+    private final int batch;
+    private final float rate;
+    private final long seed;
+
+    // Blocks of samples: the chunk and first record of each
+    private int[] blockChunk;
+    private int[] blockStart;
+    private long sampleCount;
+
+    private final float[][] tables = new float[PatternEvaluator.TYPES][];
+    private float mobility;
+    private float parity;
+    private int epoch;
+
+    private final Accumulator[] accumulators;
+
+
+    /**
+     * Trainer constructor; starts from the default weights
+     *
+     * @param shards Sample files to train on
+     * @param threads Worker threads
+     * @param batch Samples per batch, rounded to whole blocks
+     * @param rate Learning rate
+     * @param seed Seed for the block order
+     * @throws IOException if a shard cannot be mapped
+     */
+    public Trainer(List<Path> shards, int threads, int batch, float rate, long seed) throws IOException {
+        this.threads = threads;
+        this.batch = Math.max(1, batch / BLOCK);
+        this.rate = rate;
+        this.seed = seed;
+        this.accumulators = new Accumulator[threads];
+        for (int i = 0; i < threads; i++) {
+            this.accumulators[i] = new Accumulator();
+        }
+
+        List<int[]> blocks = new ArrayList<>();
+        for (Path shard : shards) {
+            for (MappedByteBuffer chunk : SampleFile.map(shard)) {
+                int records = chunk.limit() / SampleFile.RECORD_BYTES;
+                for (int start = 0; start < records; start += BLOCK) {
+                    blocks.add(new int[] {this.chunks.size(), start});
+                }
+                this.chunks.add(chunk);
+                this.sampleCount += records;
+            }
+        }
+        this.blockChunk = new int[blocks.size()];
+        this.blockStart = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            this.blockChunk[i] = blocks.get(i)[0];
+            this.blockStart[i] = blocks.get(i)[1];
+        }
+
+        PatternEvaluator.Weights defaults = PatternEvaluator.Weights.defaults();
+        for (int type = 0; type < PatternEvaluator.TYPES; type++) {
+            int[] table = defaults.getTable(type);
+            this.tables[type] = new float[table.length];
+            for (int index = 0; index < table.length; index++) {
+                this.tables[type][index] = table[index];
+            }
+        }
+        this.mobility = defaults.getMobility();
+        this.parity = defaults.getParity();
+    }
+
+
+    /**
+     * Train until the given epoch count is reached, saving after each epoch
+     *
+     * @param epochs Total epochs, counting those of earlier runs
+     * @param checkpoint Checkpoint file, or null for none
+     * @param out Weight file to write after each epoch, or null for none
+     * @throws IOException if a file cannot be written
+     * @throws InterruptedException if interrupted while training
+     */
+    public void train(int epochs, Path checkpoint, Path out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        try {
+            while (this.epoch < epochs) {
+                long start = System.nanoTime();
+                double[] losses = this.runEpoch(pool);
+                long nanos = System.nanoTime() - start;
+                this.epoch++;
+                System.out.printf("epoch %d: %.0f samples/s, train rmse %.3f discs, holdout rmse %.3f discs%n",
+                        this.epoch, this.sampleCount * 1e9 / Math.max(1, nanos), Math.sqrt(losses[0]),
+                        Math.sqrt(losses[1]));
+                if (checkpoint != null) {
+                    this.save(checkpoint);
+                }
+                if (out != null) {
+                    this.getWeights().write(out);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    // One pass over every block; returns the mean squared error in discs of
+    // the training and holdout samples
+    private double[] runEpoch(ExecutorService pool) throws InterruptedException {
+        int[] order = new int[this.blockChunk.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(this.seed + this.epoch);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        for (Accumulator accumulator : this.accumulators) {
+            accumulator.loss = 0;
+            accumulator.samples = 0;
+            accumulator.holdoutLoss = 0;
+            accumulator.holdoutSamples = 0;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(this.threads);
+        for (int first = 0; first < order.length; first += this.batch) {
+            final int[] blocks = Arrays.copyOfRange(order, first, Math.min(order.length, first + this.batch));
+            tasks.clear();
+            for (int t = 0; t < this.threads; t++) {
+                final int thread = t;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int b = thread; b < blocks.length; b += threads) {
+                            accumulate(blocks[b], accumulators[thread]);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            this.apply();
+        }
+
+        double loss = 0;
+        long samples = 0;
+        double holdoutLoss = 0;
+        long holdoutSamples = 0;
+        for (Accumulator accumulator : this.accumulators) {
+            loss += accumulator.loss;
+            samples += accumulator.samples;
+            holdoutLoss += accumulator.holdoutLoss;
+            holdoutSamples += accumulator.holdoutSamples;
+        }
+        double scale = (double) EVAL_PER_DISC * EVAL_PER_DISC;
+        return new double[] {loss / Math.max(1, samples) / scale,
+            holdoutLoss / Math.max(1, holdoutSamples) / scale};
+    }
+
+
+    // Add the error gradient of every sample in a block; runs on a worker
+    private void accumulate(int block, Accumulator accumulator) {
+        MappedByteBuffer chunk = this.chunks.get(this.blockChunk[block]);
+        int first = this.blockStart[block];
+        int last = Math.min(first + BLOCK, chunk.limit() / SampleFile.RECORD_BYTES);
+        int[] indices = accumulator.indices;
+        for (int record = first; record < last; record++) {
+            int offset = record * SampleFile.RECORD_BYTES;
+            long x = SampleFile.xDiscs(chunk, offset);
+            long o = SampleFile.oDiscs(chunk, offset);
+            boolean xToMove = (SampleFile.flags(chunk, offset) & SampleFile.X_TO_MOVE) != 0;
+            long player = xToMove ? x : o;
+            long opponent = xToMove ? o : x;
+            int mobility = Long.bitCount(MoveGenerator.legalMoves(player, opponent))
+                    - Long.bitCount(MoveGenerator.legalMoves(opponent, player));
+            int parity = (Long.bitCount(~(x | o)) & 1) != 0 ? 1 : -1;
+            float sign = xToMove ? 1 : -1;
+
+            PatternEvaluator.computeIndices(x, o, indices);
+            float patterns = 0;
+            for (int i = 0; i < PatternEvaluator.INSTANCES; i++) {
+                patterns += this.tables[PatternEvaluator.instanceType(i)][indices[i]];
+            }
+            float predicted = sign * patterns + this.mobility * mobility + this.parity * parity;
+            float error = predicted - SampleFile.score(chunk, offset) * EVAL_PER_DISC;
+
+            if (SampleFile.game(chunk, offset) % HOLDOUT == 0) {
+                accumulator.holdoutLoss += error * error;
+                accumulator.holdoutSamples++;
+                continue;
+            }
+            accumulator.loss += error * error;
+            accumulator.samples++;
+            for (int i = 0; i < PatternEvaluator.INSTANCES; i++) {
+                accumulator.add(PatternEvaluator.instanceType(i), indices[i], error * sign);
+            }
+            accumulator.mobility += error * mobility;
+            accumulator.mobilitySquares += mobility * mobility;
+            accumulator.parity += error * parity;
+            accumulator.paritySquares += 1;
+        }
+    }
+
+
+    // Merge the thread accumulators into the weights at the end of a batch
+    private void apply() {
+        Accumulator total = this.accumulators[0];
+        for (int t = 1; t < this.threads; t++) {
+            Accumulator other = this.accumulators[t];
+            for (int i = 0; i < other.touchedCount; i++) {
+                int type = other.touched[i] >>> 24;
+                int index = other.touched[i] & 0xFFFFFF;
+                int hits = other.hits[type][index];
+                float gradient = other.gradients[type][index];
+                total.add(type, index, gradient);
+                total.hits[type][index] += hits - 1;
+            }
+            total.mobility += other.mobility;
+            total.mobilitySquares += other.mobilitySquares;
+            total.parity += other.parity;
+            total.paritySquares += other.paritySquares;
+            other.clearBatch();
+        }
+
+        float step = this.rate / FEATURES;
+        for (int i = 0; i < total.touchedCount; i++) {
+            int type = total.touched[i] >>> 24;
+            int index = total.touched[i] & 0xFFFFFF;
+            this.tables[type][index] -= step * total.gradients[type][index] / total.hits[type][index];
+        }
+        if (total.mobilitySquares > 0) {
+            this.mobility -= step * total.mobility / total.mobilitySquares;
+        }
+        if (total.paritySquares > 0) {
+            this.parity -= step * total.parity / total.paritySquares;
+        }
+        total.clearBatch();
+    }
+
+
+    /**
+     * @return The current weights rounded for the evaluator
+     */
+    public PatternEvaluator.Weights getWeights() {
+        PatternEvaluator.Weights weights = new PatternEvaluator.Weights();
+        for (int type = 0; type < PatternEvaluator.TYPES; type++) {
+            int[] table = weights.getTable(type);
+            for (int index = 0; index < table.length; index++) {
+                table[index] = Math.round(this.tables[type][index]);
+            }
+        }
+        weights.setMobility(Math.round(this.mobility));
+        weights.setParity(Math.round(this.parity));
+        return weights;
+    }
+
+
+    /**
+     * @return Number of samples in the shards
+     */
+    public long getSampleCount() {
+        return this.sampleCount;
+    }
+
+
+    /**
+     * @return Epochs finished, counting those of earlier runs
+     */
+    public int getEpoch() {
+        return this.epoch;
+    }
+
+
+    /**
+     * Save the epoch and the unrounded weights. The file is written beside the
+     * real one and moved over it, so a crash leaves the old checkpoint whole.
+     *
+     * @param file Checkpoint file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = Paths.get(file + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(this.epoch);
+            out.writeFloat(this.mobility);
+            out.writeFloat(this.parity);
+            for (float[] table : this.tables) {
+                out.writeInt(table.length);
+                for (float weight : table) {
+                    out.writeFloat(weight);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * Carry on from a checkpoint written by save
+     *
+     * @param file Checkpoint file
+     * @throws IOException if the file cannot be read or does not fit
+     */
+    public void load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException(file + " is not a trainer checkpoint");
+            }
+            this.epoch = in.readInt();
+            this.mobility = in.readFloat();
+            this.parity = in.readFloat();
+            for (float[] table : this.tables) {
+                if (in.readInt() != table.length) {
+                    throw new IOException(file + " does not match the pattern tables");
+                }
+                for (int index = 0; index < table.length; index++) {
+                    table[index] = in.readFloat();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args Options as described in the class comment
+     * @throws Exception if the samples cannot be read or the results written
+     */
+    public static void main(String[] args) throws Exception {
+        String samples = "samples";
+        int epochs = 10;
+        int batch = 16384;
+        float rate = 0.5f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String checkpoint = "trainer.ckpt";
+        String out = "weights.bin";
+        long seed = 1;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--samples=")) {
+                samples = value;
+            } else if (arg.startsWith("--epochs=")) {
+                epochs = Integer.parseInt(value);
+            } else if (arg.startsWith("--batch=")) {
+                batch = Integer.parseInt(value);
+            } else if (arg.startsWith("--rate=")) {
+                rate = Float.parseFloat(value);
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpoint = value;
+            } else if (arg.startsWith("--out=")) {
+                out = value;
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        List<Path> shards = new ArrayList<>();
+        for (String name : samples.split(",")) {
+            Path path = Paths.get(name);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.bin")) {
+                    for (Path file : files) {
+                        shards.add(file);
+                    }
+                }
+            } else {
+                shards.add(path);
+            }
+        }
+
+        Trainer trainer = new Trainer(shards, threads, batch, rate, seed);
+        Path checkpointFile = Paths.get(checkpoint);
+        if (Files.exists(checkpointFile)) {
+            trainer.load(checkpointFile);
+            System.out.println("Resuming after epoch " + trainer.getEpoch());
+        }
+        System.out.println(trainer.getSampleCount() + " samples in " + shards.size() + " shards");
+        trainer.train(epochs, checkpointFile, Paths.get(out));
+    }
+}
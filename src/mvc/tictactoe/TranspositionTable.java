@@ -0,0 +1,183 @@
+package mvc.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size cache of search results keyed by Zobrist hash. Entries live in
+ * two primitive arrays sized once from a megabyte budget, so the table never
+ * grows and never allocates after it is built.
+ *
+ * Entries are grouped in buckets of two. The first slot keeps the deepest
+ * result seen for the bucket (results from an older search may always be
+ * replaced) and the second slot always takes the newest result, so shallow
+ * entries near the leaves cannot push out expensive ones near the root.
+ *
+ * Each entry's data is packed into one long: score in bits 0-31, depth in
+ * bits 32-39, bound in bits 40-41, best move in bits 42-48 and search age in
+ * bits 49-56. A data value of 0 means "no entry".
+ *
+ * One table may be shared by several searching threads without locks. The
+ * key word of an entry is stored XOR-ed with its data word, so if two
+ * threads write the same slot at once and the words get mixed up, the key no
+ * longer checks out and the entry is simply treated as a miss. The table
+ * keeps no counters of its own, so probing writes nothing shared; each
+ * Search counts its own hits and misses.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class TranspositionTable {
+
+    /** Bound type: the stored score is a lower bound (the search failed high) */
+    public static final int LOWER = 1;
+
+    /** Bound type: the stored score is an upper bound (the search failed low) */
+    public static final int UPPER = 2;
+
+    /** Bound type: the stored score is exact */
+    public static final int EXACT = 3;
+
+    // Bytes used by one entry: a key and a data word
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+
+    private int age;
+
+
+    /**
+     * TranspositionTable constructor
+     *
+     * @param megabytes Memory budget; the entry count is rounded down to a
+     * power of two that fits it
+     */
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 29));
+        this.keys = new long[buckets * 2];
+        this.data = new long[buckets * 2];
+        this.bucketMask = buckets - 1;
+    }
+
+
+    /**
+     * Look up a position
+     *
+     * @param key Zobrist hash of the position
+     * @return Packed entry data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int slot = ((int) key & this.bucketMask) << 1;
+        // Read each data word once; another thread may be rewriting it
+        long entry = this.data[slot];
+        if (entry != 0 && (this.keys[slot] ^ entry) == key) {
+            return entry;
+        }
+        entry = this.data[slot + 1];
+        if (entry != 0 && (this.keys[slot + 1] ^ entry) == key) {
+            return entry;
+        }
+        return 0;
+    }
+
+
+    /**
+     * Store a search result
+     *
+     * @param key Zobrist hash of the position
+     * @param score Score found
+     * @param depth Depth searched
+     * @param bound LOWER, UPPER or EXACT
+     * @param move Best move found, or Board.PASS if none
+     */
+    public void store(long key, int score, int depth, int bound, int move) {
+        int slot = ((int) key & this.bucketMask) << 1;
+        long entry = pack(score, depth, bound, move, this.age);
+        long old = this.data[slot];
+        if (old == 0 || (this.keys[slot] ^ old) == key || depth >= depth(old) || age(old) != this.age) {
+            this.data[slot] = entry;
+            this.keys[slot] = key ^ entry;
+        } else {
+            this.data[slot + 1] = entry;
+            this.keys[slot + 1] = key ^ entry;
+        }
+    }
+
+
+    /**
+     * Mark the start of a new search so entries from earlier searches may be
+     * replaced first
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) & 0xFF;
+    }
+
+
+    /**
+     * Empty the table
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        Arrays.fill(this.data, 0);
+    }
+
+
+    /**
+     * @return Number of entries the table can hold
+     */
+    public int getCapacity() {
+        return this.keys.length;
+    }
+
+
+    private static long pack(int score, int depth, int bound, int move, int age) {
+        return (score & 0xFFFFFFFFL)
+                | (long) (depth & 0xFF) << 32
+                | (long) bound << 40
+                | (long) (move & 0x7F) << 42
+                | (long) age << 49;
+    }
+
+
+    /**
+     * @param entry Packed entry data from probe
+     * @return Stored score
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+
+    /**
+     * @param entry Packed entry data from probe
+     * @return Stored depth
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+
+    /**
+     * @param entry Packed entry data from probe
+     * @return LOWER, UPPER or EXACT
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+
+    /**
+     * @param entry Packed entry data from probe
+     * @return Stored best move, or Board.PASS
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> 42) & 0x7F;
+    }
+
+
+    private static int age(long entry) {
+        return (int) (entry >>> 49) & 0xFF;
+    }
+}
@@ -1,7 +1,4 @@
-
-
-import com.mrjaffesclass.apcs.messenger.*;
-import javax.swing.JButton;
+package mvc.tictactoe;
 
 /**
  * MVC Template This is a template of an MVC framework used by APCS for the
@@ -11,77 +8,27 @@ import javax.swing.JButton;
  * @version 1.0
  *
  */
-public class View extends javax.swing.JFrame impl
-ements MessageHandler {
+public class View extends javax.swing.JFrame {
 
 
 
-private final Messenger mvcMessaging;
+private final MessageBus mvcMessaging;
 
 private String winner;
-    private final JButton[] jBList = ne
-        w JButton [64];
+
+    // Messages reach the View through this loop, so they are handled on the
+    // event dispatch thread whichever thread sent them
+    private final EventLoop swingLoop = EventLoop.swing("View");
+
+    // Sequence number of the last boardChange drawn
+    private long lastSequence;
     
         /**
-     * C
-        
-            
-                
-                    
-                        
-                        reates a new view
-     *  
-     * @    
-            
-            
-                
-                    
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                
-                                param messages mvcMessaging object
+     * Creates a new view
+     *
+     * @param messages mvcMessaging object
      */
-    public View(Messenger messages) {
+    public View(MessageBus messages) {
         mvcMessaging = messages;   // Save the calling controller instance
         initComponents();           // Create and init the GUI components
     }
@@ -91,103 +38,51 @@ private String winner;
      */
     public void init() {
         // Subscribe to messages here
-        this.mvcMessaging.subscribe("boardChange", this);
-        this.mvcMessaging.subscribe("gameOver", this);
-        this.mvcMessaging.subscribe("Tie", this);
-        
-        this.jBList[0] = jButton1;
-        this.jBList[1] = jButton2;
-        this.jBList[2] = jButton3;
-        this.jBList[3] = jButton4;
-        this.jBList[4] = jButton5;
-        this.jBList[5] = jButton6;
-        this.jBList[6] = jButton7;
-        this.jBList[7] = jButton8;
-        this.jBList[8] = jButton9;
-        this.jBList[9] = jButton10;
-        this.jBList[10] = jButton11;
-        this.jBList[11] = jButton12;
-        this.jBList[12] = jButton13;
-        this.jBList[13] = jButton14;
-        this.jBList[14] = jButton15;
-        this.jBList[15] = jButton16;
-        this.jBList[16] = jButton17;
-        this.jBList[17] = jButton18;
-        this.jBList[18] = jButton19;
-        this.jBList[19] = jButton20;
-        this.jBList[20] = jButton21;
-        this.jBList[21] = jButton22;
-        this.jBList[22] = jButton23;
-        this.jBList[23] = jButton24;
-        this.jBList[24] = jButton25;
-        this.jBList[25] = jButton26;
-        this.jBList[26] = jButton27;
-        this.jBList[27] = jButton28;
-        this.jBList[28] = jButton29;
-        this.jBList[29] = jButton30;
-        this.jBList[30] = jButton31;
-        this.jBList[31] = jButton32;
-        this.jBList[32] = jButton33;
-        this.jBList[33] = jButton34;
-        this.jBList[34] = jButton35;
-        this.jBList[35] = jButton36;
-        this.jBList[36] = jButton37;
-        this.jBList[37] = jButton38;
-        this.jBList[38] = jButton39;
-        this.jBList[39] = jButton40;
-        this.jBLi   st[40] = jB    utton41;
-        this.jBList[41] = jButton42;
-        this.jBList[42] = jButton43;
-        this.jBList[43] = jButton44;
-        this.jBList[44] = jButton45;
-        this.jBList[45] = jButton46;
-        this.jBList[46] =    jButton47;
-        this.jBList[47] = jButto    n48;
-        this.jBList[48] = jB     utton49;
-        this.jBList[49]     = jButton50;    
-        this.jBList[50] = jButton51;    
-        this.jBList[51] = jButto    n52;
-        this.jBList[52] = jB    utton53;
-        this.jBList[53]     = jButton54;
-        this.jBList[    54] = jButton55;
-        this.jBLis  t[55] = jButton56;
-        this.jBList[56] = jButton57;
-        this.jBList[57] = jButton58;
-        this.jBList[58] = jButton59;
-        this.jBList[59] = jButton   60;
-        this.jBList[60] = jButton61;
-        this.jBList[61] = jButton62;
-        this.jBList[62] = jButton63;
-        this.jBList[63] = jButton64;
+        this.mvcMessaging.subscribe(MessageType.BOARD_CHANGE, new MessageListener<BoardChange>() {
+            @Override
+            public void onMessage(BoardChange board) {
+                // Repaint the squares that changed, or all of them if a
+                // boardChange was missed
+                long squares = board.changedSince(lastSequence);
+                lastSequence = board.getSequence();
+                boardPanel.setDiscs(board.getXDiscs(), board.getODiscs(), squares);
+            }
+        }, this.swingLoop);
+        this.mvcMessaging.subscribe(MessageType.GAME_OVER, new MessageListener<Void>() {
+            @Override
+            public void onMessage(Void payload) {
+                jLabel1.setText("Game Over");
+            }
+        }, this.swingLoop);
+        this.mvcMessaging.subscribe(MessageType.TIE, new MessageListener<Void>() {
+            @Override
+            public void onMessage(Void payload) {
+                jLabel1.setText("Tie");
+            }
+        }, this.swingLoop);
+        this.mvcMessaging.subscribe(MessageType.POSITION_STATS, new MessageListener<PositionIndex.Stats>() {
+            @Override
+            public void onMessage(PositionIndex.Stats stats) {
+                // Show how often archived games reached this board in the title
+                setTitle(stats == null ? "" : "Position seen in " + stats);
+            }
+        }, this.swingLoop);
+
+        // A click on the board is sent as a playerMove for that square
+        boardPanel.setClickListener(new MessageListener<PlayerMove>() {
+            @Override
+            public void onMessage(PlayerMove move) {
+                mvcMessaging.notify(MessageType.PLAYER_MOVE, move);
+            }
+        });
     }
 
-    @Override
-    public void messageHandler(String messageName, Object messagePayload) {
-        if (messagePayload != null) {
-            System.out.println("MSG: received by view: " + messageName + " | " + messagePayload.toString());
-        } else {
-            System.out.println("MSG: received by view: " + messageName + " | No data sent");
-        }
-        if (messageName.equals("boardChange")) {
-            // Get the message payload and cast it as a 2D string array since we
-            // know that the model is sending out the board data with the message
-            String[][] board = (String[][]) messagePayload;
-            // Now set the button text with the contents of the board
-            int count = 0;
-            for (int i = 0; i < 8; i++) {
-                for (int j = 0; j < 8; j++) {
-                    jBList[count].setText(board[i][j]);
-                    count++;
-                }
-            }    
-                
-        }
-        if (messageName.equals("gameOver")) {
-            jLabel1.setText("Game Over");
-        }
-        if (messageName.equals("Tie")) {
-            jLabel1.setText("Tie");
-        }
+    /**
+     * @return The loop the View's messages are delivered on, for its queue
+     * metrics
+     */
+    public EventLoop getEventLoop() {
+        return this.swingLoop;
     }
 
     /**
@@ -199,316 +94,12 @@ private String winner;
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
-        jButton1 = new javax.swing.JButton();
-        jButton2 = new javax.swing.JButton();
-        jButton3 = new javax.swing.JButton();
-        jButton4 = new javax.swing.JButton();
-        jButton5 = new javax.swing.JButton();
-        jButton6 = new javax.swing.JButton();
-        jButton7 = new javax.swing.JButton();
-        jButton8 = new javax.swing.JButton();
-        jButton9 = new javax.swing.JButton();
-        jButton10 = new javax.swing.JButton();
-        jButton11 = new javax.swing.JButton();
-        jButton12 = new javax.swing.JButton();
-        jButton13 = new javax.swing.JButton();
-        jButton14 = new javax.swing.JButton();
-        jButton15 = new javax.swing.JButton();
-        jButton16 = new javax.swing.JButton();
-        jButton17 = new javax.swing.JButton();
-        jButton18 = new javax.swing.JButton();
-        jButton19 = new javax.swing.JButton();
-        jButton20 = new javax.swing.JButton();
-        jButton21 = new javax.swing.JButton();
-        jButton22 = new javax.swing.JButton();
-        jButton23 = new javax.swing.JButton();
-        jButton24 = new javax.swing.JButton();
         jLabel1 = new javax.swing.JLabel();
+        boardPanel = new mvc.tictactoe.BoardPanel();
         newGameButton = new javax.swing.JButton();
-        jButton25 = new javax.swing.JButton();
-        jButton26 = new javax.swing.JButton();
-        jButton27 = new javax.swing.JButton();
-        jButton28 = new javax.swing.JButton();
-        jButton29 = new javax.swing.JButton();
-        jButton30 = new javax.swing.JButton();
-        jButton31 = new javax.swing.JButton();
-        jButton32 = new javax.swing.JButton();
-        jButton33 = new javax.swing.JButton();
-        jButton34 = new javax.swing.JButton();
-        jButton35 = new javax.swing.JButton();
-        jButton36 = new javax.swing.JButton();
-        jButton37 = new javax.swing.JButton();
-        jButton38 = new javax.swing.JButton();
-        jButton39 = new javax.swing.JButton();
-        jButton40 = new javax.swing.JButton();
-        jButton41 = new javax.swing.JButton();
-        jButton42 = new javax.swing.JButton();
-        jButton43 = new javax.swing.JButton();
-        jButton44 = new javax.swing.JButton();
-        jButton45 = new javax.swing.JButton();
-        jButton46 = new javax.swing.JButton();
-        jButton47 = new javax.swing.JButton();
-        jButton48 = new javax.swing.JButton();
-        jButton49 = new javax.swing.JButton();
-        jButton50 = new javax.swing.JButton();
-        jButton51 = new javax.swing.JButton();
-        jButton52 = new javax.swing.JButton();
-        jButton53 = new javax.swing.JButton();
-        jButton54 = new javax.swing.JButton();
-        jButton55 = new javax.swing.JButton();
-        jButton56 = new javax.swing.JButton();
-        jButton57 = new javax.swing.JButton();
-        jButton58 = new javax.swing.JButton();
-        jButton59 = new javax.swing.JButton();
-        jButton60 = new javax.swing.JButton();
-        jButton61 = new javax.swing.JButton();
-        jButton62 = new javax.swing.JButton();
-        jButton63 = new javax.swing.JButton();
-        jButton64 = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
-        jButton1.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton1.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton1.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton1.setName("00"); // NOI18N
-        jButton1.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton2.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton2.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton2.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton2.setName("01"); // NOI18N
-        jButton2.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton3.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton3.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton3.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton3.setName("02"); // NOI18N
-        jButton3.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton4.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton4.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton4.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton4.setName("03"); // NOI18N
-        jButton4.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton5.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton5.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton5.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton5.setName("04"); // NOI18N
-        jButton5.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton6.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton6.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton6.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton6.setName("05"); // NOI18N
-        jButton6.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton7.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton7.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton7.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton7.setName("06"); // NOI18N
-        jButton7.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton8.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton8.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton8.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton8.setName("07"); // NOI18N
-        jButton8.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton9.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton9.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton9.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton9.setName("10"); // NOI18N
-        jButton9.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton10.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton10.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton10.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton10.setName("11"); // NOI18N
-        jButton10.setPreferredSize(new java.awt.Dimension(46, 46));
-        jButton10.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton11.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton11.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton11.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton11.setName("12"); // NOI18N
-        jButton11.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton12.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton12.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton12.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton12.setName("13"); // NOI18N
-        jButton12.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton13.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton13.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton13.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton13.setName("14"); // NOI18N
-        jButton13.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton14.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton14.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton14.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton14.setName("15"); // NOI18N
-        jButton14.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton15.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton15.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton15.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton15.setName("16"); // NOI18N
-        jButton15.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton16.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton16.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton16.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton16.setName("17"); // NOI18N
-        jButton16.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton17.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton17.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton17.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton17.setName("20"); // NOI18N
-        jButton17.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton18.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton18.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton18.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton18.setName("21"); // NOI18N
-        jButton18.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton19.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton19.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton19.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton19.setName("22"); // NOI18N
-        jButton19.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton20.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton20.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton20.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton20.setName("23"); // NOI18N
-        jButton20.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton21.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton21.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton21.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton21.setName("24"); // NOI18N
-        jButton21.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton22.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton22.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton22.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton22.setName("25"); // NOI18N
-        jButton22.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton23.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton23.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton23.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton23.setName("26"); // NOI18N
-        jButton23.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton24.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton24.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton24.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton24.setName("27"); // NOI18N
-        jButton24.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
         jLabel1.setFont(new java.awt.Font("Liberation Sans", 0, 36)); // NOI18N
 
         newGameButton.setText("New Game");
@@ -518,410 +109,6 @@ private String winner;
             }
         });
 
-        jButton25.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton25.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton25.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton25.setName("30"); // NOI18N
-        jButton25.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton26.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton26.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton26.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton26.setName("31"); // NOI18N
-        jButton26.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton27.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton27.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton27.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton27.setName("32"); // NOI18N
-        jButton27.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton28.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton28.setText("O");
-        jButton28.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton28.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton28.setName("33"); // NOI18N
-        jButton28.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton29.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton29.setText("X");
-        jButton29.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton29.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton29.setName("34"); // NOI18N
-        jButton29.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton30.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton30.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton30.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton30.setName("35"); // NOI18N
-        jButton30.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton31.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton31.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton31.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton31.setName("36"); // NOI18N
-        jButton31.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton32.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton32.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton32.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton32.setName("37"); // NOI18N
-        jButton32.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton33.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton33.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton33.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton33.setName("40"); // NOI18N
-        jButton33.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton34.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton34.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton34.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton34.setName("41"); // NOI18N
-        jButton34.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton35.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton35.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton35.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton35.setName("42"); // NOI18N
-        jButton35.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton36.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton36.setText("X");
-        jButton36.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton36.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton36.setName("43"); // NOI18N
-        jButton36.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton37.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton37.setText("O");
-        jButton37.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton37.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton37.setName("44"); // NOI18N
-        jButton37.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton38.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton38.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton38.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton38.setName("45"); // NOI18N
-        jButton38.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton39.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton39.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton39.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton39.setName("46"); // NOI18N
-        jButton39.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton40.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton40.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton40.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton40.setName("47"); // NOI18N
-        jButton40.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton41.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton41.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton41.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton41.setName("50"); // NOI18N
-        jButton41.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton42.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton42.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton42.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton42.setName("51"); // NOI18N
-        jButton42.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton43.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton43.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton43.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton43.setName("52"); // NOI18N
-        jButton43.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton44.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton44.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton44.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton44.setName("53"); // NOI18N
-        jButton44.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton45.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton45.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton45.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton45.setName("54"); // NOI18N
-        jButton45.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton46.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton46.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton46.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton46.setName("55"); // NOI18N
-        jButton46.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton47.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton47.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton47.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton47.setName("56"); // NOI18N
-        jButton47.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton48.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton48.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton48.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton48.setName("57"); // NOI18N
-        jButton48.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton49.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton49.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton49.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton49.setName("60"); // NOI18N
-        jButton49.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton50.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton50.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton50.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton50.setName("61"); // NOI18N
-        jButton50.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton51.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton51.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton51.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton51.setName("62"); // NOI18N
-        jButton51.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton52.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton52.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton52.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton52.setName("63"); // NOI18N
-        jButton52.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton53.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton53.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton53.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton53.setName("64"); // NOI18N
-        jButton53.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton54.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton54.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton54.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton54.setName("65"); // NOI18N
-        jButton54.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton55.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton55.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton55.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton55.setName("66"); // NOI18N
-        jButton55.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton56.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton56.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton56.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton56.setName("67"); // NOI18N
-        jButton56.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton57.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton57.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton57.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton57.setName("70"); // NOI18N
-        jButton57.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton58.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton58.setMaximumSize(new java.awt.Dimension(83, 83));
-        jButton58.setMinimumSize(new java.awt.Dimension(83, 83));
-        jButton58.setName("71"); // NOI18N
-        jButton58.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton59.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton59.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton59.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton59.setName("72"); // NOI18N
-        jButton59.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton60.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton60.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton60.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton60.setName("73"); // NOI18N
-        jButton60.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton61.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton61.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton61.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton61.setName("74"); // NOI18N
-        jButton61.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton62.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton62.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton62.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton62.setName("75"); // NOI18N
-        jButton62.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton63.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton63.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton63.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton63.setName("76"); // NOI18N
-        jButton63.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
-        jButton64.setFont(new java.awt.Font("Liberation Sans", 0, 10)); // NOI18N
-        jButton64.setMaximumSize(new java.awt.Dimension(46, 46));
-        jButton64.setMinimumSize(new java.awt.Dimension(46, 46));
-        jButton64.setName("77"); // NOI18N
-        jButton64.addActionListener(new java.awt.event.ActionListener() {
-            public void actionPerformed(java.awt.event.ActionEvent evt) {
-                onClick(evt);
-            }
-        });
-
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -929,148 +116,11 @@ private String winner;
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                    .addGroup(layout.createSequentialGroup()
-                        .addGap(202, 202, 202)
-                        .addComponent(jLabel1, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+                    .addComponent(jLabel1, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(boardPanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(newGameButton)
-                        .addGap(0, 0, Short.MAX_VALUE))
-                    .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
-                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
-                            .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
-                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING, false)
-                                    .addGroup(layout.createSequentialGroup()
-                                        .addComponent(jButton17, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                                        .addComponent(jButton18, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                                    .addGroup(layout.createSequentialGroup()
-                                        .addComponent(jButton9, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                        .addComponent(jButton10, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                                    .addComponent(jButton19, javax.swing.GroupLayout.DEFAULT_SIZE, 46, Short.MAX_VALUE)
-                                    .addComponent(jButton11, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE))
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                                    .addComponent(jButton20, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
-                                    .addComponent(jButton12, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)))
-                            .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
-                                .addComponent(jButton25, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton26, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton27, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton28, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE))
-                            .addGroup(javax.swing.GroupLayout.Alignment.LEADING, layout.createSequentialGroup()
-                                .addComponent(jButton1, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addGap(7, 7, 7)
-                                .addComponent(jButton2, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton3, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton4, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)))
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                            .addGroup(layout.createSequentialGroup()
-                                .addComponent(jButton5, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton6, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton7, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addComponent(jButton8, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                            .addGroup(layout.createSequentialGroup()
-                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING, false)
-                                    .addComponent(jButton29, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
-                                    .addComponent(jButton21, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
-                                    .addComponent(jButton13, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                                    .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                                        .addGroup(layout.createSequentialGroup()
-                                            .addComponent(jButton14, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                            .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                            .addComponent(jButton15, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                            .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                            .addComponent(jButton16, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                                        .addGroup(layout.createSequentialGroup()
-                                            .addComponent(jButton22, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                            .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                            .addComponent(jButton23, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                            .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                                            .addComponent(jButton24, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)))
-                                    .addGroup(layout.createSequentialGroup()
-                                        .addComponent(jButton30, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                                        .addComponent(jButton31, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                                        .addComponent(jButton32, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))))))
-                    .addGroup(layout.createSequentialGroup()
-                        .addComponent(jButton33, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton34, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton35, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton36, javax.swing.GroupLayout.PREFERRED_SIZE, 44, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton37, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton38, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton39, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton40, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                    .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
-                        .addComponent(jButton41, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton42, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton43, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton44, javax.swing.GroupLayout.PREFERRED_SIZE, 44, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton45, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton46, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton47, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton48, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                    .addGroup(layout.createSequentialGroup()
-                        .addComponent(jButton49, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton50, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton51, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton52, javax.swing.GroupLayout.PREFERRED_SIZE, 44, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton53, javax.swing.GroupLayout.PREFERRED_SIZE, 42, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton54, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton55, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton56, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE))
-                    .addGroup(layout.createSequentialGroup()
-                        .addComponent(jButton57, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton58, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton59, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton60, javax.swing.GroupLayout.PREFERRED_SIZE, 44, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton61, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton62, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                        .addComponent(jButton63, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(jButton64, javax.swing.GroupLayout.PREFERRED_SIZE, 45, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                        .addGap(0, 0, Short.MAX_VALUE)))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -1078,87 +128,8 @@ private String winner;
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
                 .addComponent(jLabel1, javax.swing.GroupLayout.PREFERRED_SIZE, 44, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                    .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                        .addComponent(jButton2, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addComponent(jButton3, javax.swing.GroupLayout.Alignment.TRAILING, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addComponent(jButton1, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                    .addComponent(jButton4, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton5, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton6, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton7, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton8, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                .addGap(8, 8, 8)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton11, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton9, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton10, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton12, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton13, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton14, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton15, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton16, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING, false)
-                    .addComponent(jButton18, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.PREFERRED_SIZE, 46, Short.MAX_VALUE)
-                    .addComponent(jButton19, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton17, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton20, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton21, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton22, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton23, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton24, javax.swing.GroupLayout.Alignment.LEADING, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton30, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton31, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton32, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton25, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton26, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton28, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton27, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton29, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton38, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton39, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton40, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton33, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton34, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton36, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton35, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton37, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton46, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton47, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton48, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton41, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton42, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton44, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton43, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton45, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton54, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton55, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton56, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton49, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton50, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton52, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton51, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton53, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
-                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
-                    .addComponent(jButton62, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton63, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton64, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton57, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton58, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(jButton60, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton59, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                    .addComponent(jButton61, javax.swing.GroupLayout.PREFERRED_SIZE, 46, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addComponent(boardPanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(newGameButton)
                 .addContainerGap())
@@ -1167,14 +138,9 @@ private String winner;
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
-    private void onClick(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_onClick
-        JButton button = (JButton) evt.getSource();
-        this.mvcMessaging.notify("playerMove", button.getName());
-    }//GEN-LAST:event_onClick
-
     private void newGameButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_newGameButtonActionPerformed
         jLabel1.setText("");
-        this.mvcMessaging.notify("newGame");
+        this.mvcMessaging.notify(MessageType.NEW_GAME);
     }//GEN-LAST:event_newGameButtonActionPerformed
 
     /**
@@ -1182,70 +148,7 @@ private String winner;
      */
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
-    private javax.swing.JButton jButton1;
-    private javax.swing.JButton jButton10;
-    private javax.swing.JButton jButton11;
-    private javax.swing.JButton jButton12;
-    private javax.swing.JButton jButton13;
-    private javax.swing.JButton jButton14;
-    private javax.swing.JButton jButton15;
-    private javax.swing.JButton jButton16;
-    private javax.swing.JButton jButton17;
-    private javax.swing.JButton jButton18;
-    private javax.swing.JButton jButton19;
-    private javax.swing.JButton jButton2;
-    private javax.swing.JButton jButton20;
-    private javax.swing.JButton jButton21;
-    private javax.swing.JButton jButton22;
-    private javax.swing.JButton jButton23;
-    private javax.swing.JButton jButton24;
-    private javax.swing.JButton jButton25;
-    private javax.swing.JButton jButton26;
-    private javax.swing.JButton jButton27;
-    private javax.swing.JButton jButton28;
-    private javax.swing.JButton jButton29;
-    private javax.swing.JButton jButton3;
-    private javax.swing.JButton jButton30;
-    private javax.swing.JButton jButton31;
-    private javax.swing.JButton jButton32;
-    private javax.swing.JButton jButton33;
-    private javax.swing.JButton jButton34;
-    private javax.swing.JButton jButton35;
-    private javax.swing.JButton jButton36;
-    private javax.swing.JButton jButton37;
-    private javax.swing.JButton jButton38;
-    private javax.swing.JButton jButton39;
-    private javax.swing.JButton jButton4;
-    private javax.swing.JButton jButton40;
-    private javax.swing.JButton jButton41;
-    private javax.swing.JButton jButton42;
-    private javax.swing.JButton jButton43;
-    private javax.swing.JButton jButton44;
-    private javax.swing.JButton jButton45;
-    private javax.swing.JButton jButton46;
-    private javax.swing.JButton jButton47;
-    private javax.swing.JButton jButton48;
-    private javax.swing.JButton jButton49;
-    private javax.swing.JButton jButton5;
-    private javax.swing.JButton jButton50;
-    private javax.swing.JButton jButton51;
-    private javax.swing.JButton jButton52;
-    private javax.swing.JButton jButton53;
-    private javax.swing.JButton jButton54;
-    private javax.swing.JButton jButton55;
-    private javax.swing.JButton jButton56;
-    private javax.swing.JButton jButton57;
-    private javax.swing.JButton jButton58;
-    private javax.swing.JButton jButton59;
-    private javax.swing.JButton jButton6;
-    private javax.swing.JButton jButton60;
-    private javax.swing.JButton jButton61;
-    private javax.swing.JButton jButton62;
-    private javax.swing.JButton jButton63;
-    private javax.swing.JButton jButton64;
-    private javax.swing.JButton jButton7;
-    private javax.swing.JButton jButton8;
-    private javax.swing.JButton jButton9;
+    private mvc.tictactoe.BoardPanel boardPanel;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JButton newGameButton;
     // End of variables declaration//GEN-END:variables
@@ -0,0 +1,319 @@
+package mvc.tictactoe;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports games from WTHOR database files (.wtb) into a GameArchive. Every
+ * game is replayed on a Board with the Model's rules; a game with a move that
+ * is not legal, or with a byte that is not a square, is left out and listed
+ * in the error report instead.
+ *
+ * A WTHOR file is a 16 byte header (the game count is the little-endian int
+ * at offset 4, and the board size is the byte at offset 12, 0 or 8 for 8x8)
+ * followed by 68 byte games: tournament, black player and white player
+ * numbers (little-endian shorts), black's disc count, black's disc count
+ * with perfect play from move 36, and 60 moves written as 10 * row + column
+ * counting from 1, with 0 after the last move. Black moves first and is X
+ * here. Player names come from the WTHOR.JOU file, 20 bytes each after a 16
+ * byte header, if one is given. A file for any other board size is left out
+ * whole, with one error line.
+ *
+ * Files are read and replayed in parallel; the archive is written in the
+ * order the files were given.
+ *
+ * Usage: WthorImporter --out=FILE [--players=WTHOR.JOU] [--errors=FILE]
+ * [--threads=N] FILE_OR_DIR...
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public class WthorImporter {
+
+    /** Bytes in the header of a WTHOR file */
+    public static final int HEADER_BYTES = 16;
+
+    /** Bytes in one WTHOR game */
+    public static final int GAME_BYTES = 68;
+
+    // Offset of the board size in the header
+    private static final int BOARD_SIZE_OFFSET = 12;
+
+    // Offset of the first move in a game
+    private static final int MOVES_OFFSET = 8;
+
+    // Bytes in one WTHOR.JOU player name
+    private static final int PLAYER_BYTES = 20;
+
+    /**
+     * The games of one file that replayed legally, and the errors of those
+     * that did not
+     */
+    private static class Result {
+
+        private final Path file;
+        private int games;
+        private byte[] moves = new byte[0];
+        private int[] moveCounts = new int[0];
+        private int[] blackPlayers = new int[0];
+        private int[] whitePlayers = new int[0];
+        private int[] scores = new int[0];
+        private final List<String> errors = new ArrayList<>();
+
+
+        private Result(Path file) {
+            this.file = file;
+        }
+    }
+
+    private final String[] playerNames;
+
+
+    /**
+     * WthorImporter constructor
+     *
+     * @param playerNames Names by WTHOR player number; numbers past the end
+     * are written as "#number"
+     */
+    public WthorImporter(String[] playerNames) {
+        this.playerNames = playerNames;
+    }
+
+
+    /**
+     * Read the player names from a WTHOR.JOU file
+     *
+     * @param file Player file
+     * @return Names by player number
+     * @throws IOException if the file cannot be read
+     */
+    public static String[] readPlayers(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int count = Math.max(0, (bytes.length - HEADER_BYTES) / PLAYER_BYTES);
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            int start = HEADER_BYTES + i * PLAYER_BYTES;
+            int end = start;
+            while (end < start + PLAYER_BYTES && bytes[end] != 0) {
+                end++;
+            }
+            names[i] = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1).trim();
+        }
+        return names;
+    }
+
+
+    /**
+     * Import files into one archive
+     *
+     * @param files WTHOR files, in the order to write them
+     * @param out Archive to write
+     * @param errors Where to list the games that were left out
+     * @param threads Files read at the same time
+     * @return Number of games written
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long run(List<Path> files, Path out, PrintWriter errors, int threads)
+            throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (GameArchive.Writer writer = new GameArchive.Writer(out, GameArchive.DEFAULT_BLOCK_GAMES)) {
+            List<Future<Result>> results = new ArrayList<>(files.size());
+            for (final Path file : files) {
+                results.add(pool.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws IOException {
+                        return replayFile(file);
+                    }
+                }));
+            }
+            for (Future<Result> future : results) {
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+                for (int game = 0; game < result.games; game++) {
+                    writer.addGame(result.moves, game * GameArchive.MAX_MOVES, result.moveCounts[game],
+                            writer.player(this.playerName(result.blackPlayers[game])),
+                            writer.player(this.playerName(result.whitePlayers[game])), result.scores[game]);
+                }
+                for (String error : result.errors) {
+                    errors.println(result.file + ": " + error);
+                }
+            }
+            return writer.getGames();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    // Read one file and replay every game in it; runs on a worker
+    private Result replayFile(Path file) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        Result result = new Result(file);
+        if (data.limit() < HEADER_BYTES) {
+            result.errors.add("file is too short for a WTHOR header");
+            return result;
+        }
+        int size = data.get(BOARD_SIZE_OFFSET) & 0xFF;
+        if (size != 0 && size != Board.SIZE) {
+            result.errors.add("board size is " + size + ", not " + Board.SIZE);
+            return result;
+        }
+        int declared = data.getInt(4);
+        int count = (data.limit() - HEADER_BYTES) / GAME_BYTES;
+        if (declared != count) {
+            result.errors.add("header says " + declared + " games, file holds " + count);
+        }
+        result.moves = new byte[count * GameArchive.MAX_MOVES];
+        result.moveCounts = new int[count];
+        result.blackPlayers = new int[count];
+        result.whitePlayers = new int[count];
+        result.scores = new int[count];
+
+        Board board = new Board();
+        for (int game = 0; game < count; game++) {
+            int offset = HEADER_BYTES + game * GAME_BYTES;
+            String error = replayGame(data, offset, board, result.moves, result.games * GameArchive.MAX_MOVES);
+            if (error != null) {
+                result.errors.add("game " + game + ": " + error);
+                continue;
+            }
+            int index = result.games++;
+            result.moveCounts[index] = board.getPly() - countPasses(board);
+            result.blackPlayers[index] = data.getShort(offset + 2) & 0xFFFF;
+            result.whitePlayers[index] = data.getShort(offset + 4) & 0xFFFF;
+            // The recorded score is black's discs; the archive keeps X minus O
+            result.scores[index] = 2 * (data.get(offset + 6) & 0xFF) - Board.SQUARES;
+        }
+        return result;
+    }
+
+
+    /**
+     * Replay one WTHOR game from the new game position, passing whenever the
+     * side to move has no legal move
+     *
+     * @param data WTHOR file contents
+     * @param offset Offset of the game
+     * @param board Board to replay on; left at the end of the game
+     * @param moves Filled with the squares played
+     * @param movesOffset Where in moves to put the first square
+     * @return null if the game is legal, otherwise what is wrong with it
+     */
+    public static String replayGame(ByteBuffer data, int offset, Board board, byte[] moves, int movesOffset) {
+        board.reset();
+        int count = 0;
+        for (int i = 0; i < GameArchive.MAX_MOVES; i++) {
+            int code = data.get(offset + MOVES_OFFSET + i) & 0xFF;
+            if (code == 0) {
+                break;
+            }
+            int row = code / 10 - 1;
+            int col = code % 10 - 1;
+            if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE) {
+                return "move " + (i + 1) + " is " + code + ", not a square";
+            }
+            int square = Board.square(row, col);
+            if (MoveGenerator.legalMoves(board) == 0) {
+                board.makeMove(Board.PASS);
+            }
+            if ((MoveGenerator.legalMoves(board) & Board.bit(square)) == 0) {
+                return "move " + (i + 1) + " at " + code + " is not legal";
+            }
+            board.makeMove(square);
+            moves[movesOffset + count++] = (byte) square;
+        }
+        return null;
+    }
+
+
+    // Passes in a board's history
+    private static int countPasses(Board board) {
+        int passes = 0;
+        for (int ply = 0; ply < board.getPly(); ply++) {
+            if (board.getMove(ply) == Board.PASS) {
+                passes++;
+            }
+        }
+        return passes;
+    }
+
+
+    private String playerName(int number) {
+        return number < this.playerNames.length ? this.playerNames[number] : "#" + number;
+    }
+
+
+    /**
+     * Program entry
+     *
+     * @param args Options as described in the class comment
+     * @throws Exception if a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        String out = null;
+        String players = null;
+        String errors = "wthor-errors.txt";
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--out=")) {
+                out = value;
+            } else if (arg.startsWith("--players=")) {
+                players = value;
+            } else if (arg.startsWith("--errors=")) {
+                errors = value;
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else if (Files.isDirectory(Paths.get(arg))) {
+                List<Path> found = new ArrayList<>();
+                try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get(arg), "*.{wtb,WTB}")) {
+                    for (Path file : dir) {
+                        found.add(file);
+                    }
+                }
+                Collections.sort(found);
+                files.addAll(found);
+            } else {
+                files.add(Paths.get(arg));
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("--out=FILE is required");
+        }
+
+        WthorImporter importer = new WthorImporter(players != null
+                ? readPlayers(Paths.get(players)) : new String[0]);
+        long start = System.nanoTime();
+        long games;
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(Paths.get(errors),
+                StandardCharsets.UTF_8))) {
+            games = importer.run(files, Paths.get(out), report, threads);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%d games from %d files in %.1f s, %.0f games/s; errors in %s%n", games,
+                files.size(), nanos / 1e9, games * 1e9 / Math.max(1, nanos), errors);
+    }
+}
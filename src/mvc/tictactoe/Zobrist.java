@@ -0,0 +1,108 @@
+package mvc.tictactoe;
+
+/**
+ * Zobrist keys for hashing positions. A position's hash is the XOR of one
+ * random key for every disc on the board plus a key for the side to move, so
+ * a move can update it by XOR-ing in only what changed.
+ *
+ * @author Roger Jaffe
+ * @version 1.0
+ */
+public final class Zobrist {
+
+    // Key for an X disc and for an O disc on each square
+    private static final long[] X_KEYS = new long[Board.SQUARES];
+    private static final long[] O_KEYS = new long[Board.SQUARES];
+
+    /** XOR-ed in when it is O's move */
+    public static final long O_TO_MOVE;
+
+    // FLIP_KEYS[b][v] is the change in hash from turning over the discs of
+    // byte b of a board mask that are set in v
+    private static final long[][] FLIP_KEYS = new long[8][256];
+
+    static {
+        // SplitMix64 with a fixed seed so hashes are the same on every run
+        long seed = 0x4F7468656C6C6FL;
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            seed += 0x9E3779B97F4A7C15L;
+            X_KEYS[sq] = mix(seed);
+            seed += 0x9E3779B97F4A7C15L;
+            O_KEYS[sq] = mix(seed);
+        }
+        seed += 0x9E3779B97F4A7C15L;
+        O_TO_MOVE = mix(seed);
+
+        for (int b = 0; b < 8; b++) {
+            for (int v = 1; v < 256; v++) {
+                int low = Integer.numberOfTrailingZeros(v);
+                int sq = b * 8 + low;
+                FLIP_KEYS[b][v] = FLIP_KEYS[b][v & (v - 1)] ^ X_KEYS[sq] ^ O_KEYS[sq];
+            }
+        }
+    }
+
+
+    private Zobrist() {
+    }
+
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+
+    /**
+     * Hash of a position computed from scratch
+     *
+     * @param xDiscs Mask of the squares holding X discs
+     * @param oDiscs Mask of the squares holding O discs
+     * @param xToMove true if it is X's move
+     * @return Zobrist hash
+     */
+    public static long hash(long xDiscs, long oDiscs, boolean xToMove) {
+        long hash = xToMove ? 0 : O_TO_MOVE;
+        while (xDiscs != 0) {
+            hash ^= X_KEYS[Long.numberOfTrailingZeros(xDiscs)];
+            xDiscs &= xDiscs - 1;
+        }
+        while (oDiscs != 0) {
+            hash ^= O_KEYS[Long.numberOfTrailingZeros(oDiscs)];
+            oDiscs &= oDiscs - 1;
+        }
+        return hash;
+    }
+
+
+    /**
+     * Change in hash from putting a disc on a square
+     *
+     * @param square Square index 0-63
+     * @param x true for an X disc
+     * @return Key to XOR into the hash
+     */
+    public static long placeKey(int square, boolean x) {
+        return x ? X_KEYS[square] : O_KEYS[square];
+    }
+
+
+    /**
+     * Change in hash from turning over every disc in a mask. Costs eight
+     * table lookups however many discs are flipped.
+     *
+     * @param flips Mask of the discs turned over
+     * @return Key to XOR into the hash
+     */
+    public static long flipKey(long flips) {
+        return FLIP_KEYS[0][(int) flips & 0xFF]
+                ^ FLIP_KEYS[1][(int) (flips >>> 8) & 0xFF]
+                ^ FLIP_KEYS[2][(int) (flips >>> 16) & 0xFF]
+                ^ FLIP_KEYS[3][(int) (flips >>> 24) & 0xFF]
+                ^ FLIP_KEYS[4][(int) (flips >>> 32) & 0xFF]
+                ^ FLIP_KEYS[5][(int) (flips >>> 40) & 0xFF]
+                ^ FLIP_KEYS[6][(int) (flips >>> 48) & 0xFF]
+                ^ FLIP_KEYS[7][(int) (flips >>> 56) & 0xFF];
+    }
+}